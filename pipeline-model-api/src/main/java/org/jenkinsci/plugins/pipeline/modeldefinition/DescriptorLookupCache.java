@@ -48,6 +48,7 @@ public class DescriptorLookupCache {
     private transient Map<String, DescribableModel<? extends Step>> modelMap;
     private transient Map<String, Descriptor<? extends Describable>> describableMap;
     private transient Map<String, DescribableModel<? extends Describable>> describableModelMap;
+    private transient volatile ClassModels classModels;
 
     public static DescriptorLookupCache getPublicCache() {
         return ExtensionList.lookup(DescriptorLookupCache.class).get(0);
@@ -67,6 +68,27 @@ public class DescriptorLookupCache {
         this.modelMap = new LinkedHashMap<>();
         this.describableMap = new LinkedHashMap<>();
         this.describableModelMap = new LinkedHashMap<>();
+        this.classModels = new ClassModels();
+    }
+
+    /**
+     * Get the {@link DescribableModel} for a class, building it only the first time it's asked for. The models are
+     * attached to the classes themselves, so they don't keep classes from unloaded plugins around, and are all dropped
+     * by {@link #invalidateAll()}.
+     *
+     * @param c The class to model.
+     * @return The shared model for that class.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> DescribableModel<T> modelForClass(Class<T> c) {
+        return (DescribableModel<T>) classModels.get(c);
+    }
+
+    private static final class ClassModels extends ClassValue<DescribableModel<?>> {
+        @Override
+        protected DescribableModel<?> computeValue(Class<?> type) {
+            return new DescribableModel<>(type);
+        }
     }
 
     public synchronized DescribableModel<? extends Step> modelForStep(String n) {
@@ -94,10 +116,9 @@ public class DescriptorLookupCache {
 
             return describableModelMap.get(n);
         } else {
-            // TODO: Cache models for parent describables too
             final Descriptor<? extends Describable> function = lookupFunction(n, describable);
             Class<? extends Describable> c = (function == null ? null : function.clazz);
-            return c != null ? new DescribableModel<>(c) : null;
+            return c != null ? modelForClass(c) : null;
         }
     }
 
@@ -0,0 +1,121 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2018, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.jenkinsci.plugins.pipeline.modeldefinition.ast;
+
+import net.sf.json.JSONArray;
+import net.sf.json.JSONObject;
+import org.jenkinsci.plugins.pipeline.modeldefinition.validator.ModelValidator;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The axes of a matrix stage. The stage is run once for every combination of the axes' values.
+ *
+ * @author Andrew Bayer
+ */
+public final class ModelASTMatrix extends ModelASTElement {
+    private List<ModelASTMatrixAxis> axes = new ArrayList<>();
+
+    public ModelASTMatrix(Object sourceLocation) {
+        super(sourceLocation);
+    }
+
+    @Override
+    public JSONObject toJSON() {
+        final JSONArray a = new JSONArray();
+        for (ModelASTMatrixAxis axis : axes) {
+            a.add(axis.toJSON());
+        }
+        return new JSONObject().accumulate("axes", a);
+    }
+
+    @Override
+    public void validate(@Nonnull final ModelValidator validator) {
+        validator.validateElement(this);
+        for (ModelASTMatrixAxis axis : axes) {
+            axis.validate(validator);
+        }
+    }
+
+    @Override
+    public String toGroovy() {
+        StringBuilder result = new StringBuilder("matrix {\n");
+        for (ModelASTMatrixAxis axis : axes) {
+            result.append(axis.toGroovy()).append("\n");
+        }
+        result.append("}\n");
+        return result.toString();
+    }
+
+    @Override
+    public void removeSourceLocation() {
+        super.removeSourceLocation();
+        for (ModelASTMatrixAxis axis : axes) {
+            axis.removeSourceLocation();
+        }
+    }
+
+    public List<ModelASTMatrixAxis> getAxes() {
+        return axes;
+    }
+
+    public void setAxes(List<ModelASTMatrixAxis> axes) {
+        this.axes = axes;
+    }
+
+    @Override
+    public String toString() {
+        return "ModelASTMatrix{" +
+                "axes=" + axes +
+                "}";
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        if (!super.equals(o)) {
+            return false;
+        }
+
+        ModelASTMatrix that = (ModelASTMatrix) o;
+
+        return getAxes() != null ? getAxes().equals(that.getAxes()) : that.getAxes() == null;
+
+    }
+
+    @Override
+    public int hashCode() {
+        int result = super.hashCode();
+        result = 31 * result + (getAxes() != null ? getAxes().hashCode() : 0);
+        return result;
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2018, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.jenkinsci.plugins.pipeline.modeldefinition.ast;
+
+import net.sf.json.JSONArray;
+import net.sf.json.JSONObject;
+import org.jenkinsci.plugins.pipeline.modeldefinition.validator.ModelValidator;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A single axis of a {@link ModelASTMatrix} - the name of the environment variable the axis sets, and the values it
+ * takes.
+ *
+ * @author Andrew Bayer
+ */
+public final class ModelASTMatrixAxis extends ModelASTElement {
+    private ModelASTValue name;
+    private List<ModelASTValue> values = new ArrayList<>();
+
+    public ModelASTMatrixAxis(Object sourceLocation) {
+        super(sourceLocation);
+    }
+
+    @Override
+    public JSONObject toJSON() {
+        final JSONArray a = new JSONArray();
+        for (ModelASTValue v : values) {
+            a.add(v.toJSON());
+        }
+        return new JSONObject()
+                .accumulate("name", name != null ? name.toJSON() : null)
+                .accumulate("values", a);
+    }
+
+    @Override
+    public void validate(@Nonnull final ModelValidator validator) {
+        if (name != null) {
+            name.validate(validator);
+        }
+        for (ModelASTValue v : values) {
+            v.validate(validator);
+        }
+    }
+
+    @Override
+    public String toGroovy() {
+        StringBuilder result = new StringBuilder("axis ").append(name.toGroovy());
+        for (ModelASTValue v : values) {
+            result.append(", ").append(v.toGroovy());
+        }
+        return result.toString();
+    }
+
+    @Override
+    public void removeSourceLocation() {
+        super.removeSourceLocation();
+        if (name != null) {
+            name.removeSourceLocation();
+        }
+        for (ModelASTValue v : values) {
+            v.removeSourceLocation();
+        }
+    }
+
+    public ModelASTValue getName() {
+        return name;
+    }
+
+    public void setName(ModelASTValue name) {
+        this.name = name;
+    }
+
+    public List<ModelASTValue> getValues() {
+        return values;
+    }
+
+    public void setValues(List<ModelASTValue> values) {
+        this.values = values;
+    }
+
+    @Override
+    public String toString() {
+        return "ModelASTMatrixAxis{" +
+                "name=" + name +
+                ", values=" + values +
+                "}";
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        if (!super.equals(o)) {
+            return false;
+        }
+
+        ModelASTMatrixAxis that = (ModelASTMatrixAxis) o;
+
+        if (getName() != null ? !getName().equals(that.getName()) : that.getName() != null) {
+            return false;
+        }
+        return getValues() != null ? getValues().equals(that.getValues()) : that.getValues() == null;
+
+    }
+
+    @Override
+    public int hashCode() {
+        int result = super.hashCode();
+        result = 31 * result + (getName() != null ? getName().hashCode() : 0);
+        result = 31 * result + (getValues() != null ? getValues().hashCode() : 0);
+        return result;
+    }
+}
@@ -28,6 +28,7 @@ public final class ModelASTStage extends ModelASTElement {
     private ModelASTStages parallel;
     private ModelASTOptions options;
     private ModelASTStageInput input;
+    private ModelASTMatrix matrix;
 
     public ModelASTStage(Object sourceLocation) {
         super(sourceLocation);
@@ -75,6 +76,9 @@ public final class ModelASTStage extends ModelASTElement {
         if (input != null) {
             o.accumulate("input", input.toJSON());
         }
+        if (matrix != null) {
+            o.accumulate("matrix", matrix.toJSON());
+        }
 
         return o;
     }
@@ -113,6 +117,9 @@ public final class ModelASTStage extends ModelASTElement {
         if (input != null) {
             input.validate(validator);
         }
+        if (matrix != null) {
+            matrix.validate(validator);
+        }
     }
 
     @Override
@@ -138,6 +145,12 @@ public final class ModelASTStage extends ModelASTElement {
         if (input != null) {
             result.append(input.toGroovy());
         }
+        if (matrix != null) {
+            if (failFast != null && failFast) {
+                result.append("failFast true\n");
+            }
+            result.append(matrix.toGroovy());
+        }
         if (branches.isEmpty() && parallel != null) {
             if (failFast != null && failFast) {
                 result.append("failFast true\n");
@@ -212,6 +225,9 @@ public final class ModelASTStage extends ModelASTElement {
         if (input != null) {
             input.removeSourceLocation();
         }
+        if (matrix != null) {
+            matrix.removeSourceLocation();
+        }
     }
 
     public String getName() {
@@ -302,6 +318,14 @@ public final class ModelASTStage extends ModelASTElement {
         this.input = input;
     }
 
+    public ModelASTMatrix getMatrix() {
+        return matrix;
+    }
+
+    public void setMatrix(ModelASTMatrix matrix) {
+        this.matrix = matrix;
+    }
+
     @Override
     public String toString() {
         return "ModelASTStage{" +
@@ -316,6 +340,7 @@ public final class ModelASTStage extends ModelASTElement {
                 ", parallel=" + parallel +
                 ", options=" + options +
                 ", input=" + input +
+                ", matrix=" + matrix +
                 "}";
     }
 
@@ -357,6 +382,9 @@ public final class ModelASTStage extends ModelASTElement {
         if (getInput() != null ? !getInput().equals(that.getInput()) : that.getInput() != null) {
             return false;
         }
+        if (getMatrix() != null ? !getMatrix().equals(that.getMatrix()) : that.getMatrix() != null) {
+            return false;
+        }
         if (getFailFast() != null ? !getFailFast().equals(that.getFailFast()) : that.getFailFast() != null) {
             return false;
         }
@@ -381,6 +409,7 @@ public final class ModelASTStage extends ModelASTElement {
         result = 31 * result + (getParallel() != null ? getParallel().hashCode() : 0);
         result = 31 * result + (getOptions() != null ? getOptions().hashCode() : 0);
         result = 31 * result + (getInput() != null ? getInput().hashCode() : 0);
+        result = 31 * result + (getMatrix() != null ? getMatrix().hashCode() : 0);
         return result;
     }
 }
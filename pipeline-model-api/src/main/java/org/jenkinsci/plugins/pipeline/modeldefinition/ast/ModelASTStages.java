@@ -19,8 +19,12 @@ public final class ModelASTStages extends ModelASTElement {
     private final UUID uuid;
 
     public ModelASTStages(Object sourceLocation) {
+        this(sourceLocation, UUID.randomUUID());
+    }
+
+    public ModelASTStages(Object sourceLocation, @Nonnull UUID uuid) {
         super(sourceLocation);
-        this.uuid = UUID.randomUUID();
+        this.uuid = uuid;
     }
 
     @Override
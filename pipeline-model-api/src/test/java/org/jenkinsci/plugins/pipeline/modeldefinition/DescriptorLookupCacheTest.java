@@ -0,0 +1,73 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2018, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.jenkinsci.plugins.pipeline.modeldefinition;
+
+import org.jenkinsci.plugins.structs.describable.DescribableModel;
+import org.junit.Test;
+import org.kohsuke.stapler.DataBoundConstructor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class DescriptorLookupCacheTest {
+    @Test
+    public void modelForClassReused() {
+        DescriptorLookupCache cache = new DescriptorLookupCache();
+        DescribableModel<Sample> model = cache.modelForClass(Sample.class);
+        assertEquals(Sample.class, model.getType());
+        assertSame(model, cache.modelForClass(Sample.class));
+    }
+
+    @Test
+    public void modelForClassDroppedWhenInvalidated() {
+        // invalidateAll is what the cache gets whenever the extensions change.
+        DescriptorLookupCache cache = new DescriptorLookupCache();
+        DescribableModel<Sample> model = cache.modelForClass(Sample.class);
+        cache.invalidateAll();
+        DescribableModel<Sample> rebuilt = cache.modelForClass(Sample.class);
+        assertNotSame(model, rebuilt);
+        assertSame(rebuilt, cache.modelForClass(Sample.class));
+    }
+
+    @Test
+    public void modelForClassNotSharedBetweenCaches() {
+        assertNotSame(new DescriptorLookupCache().modelForClass(Sample.class),
+                new DescriptorLookupCache().modelForClass(Sample.class));
+    }
+
+    public static class Sample {
+        private final String name;
+
+        @DataBoundConstructor
+        public Sample(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+}
@@ -403,7 +403,7 @@ class Utils {
     @Whitelisted
     @Restricted(NoExternalUse.class)
     static <T> T instantiateDescribable(Class<T> c, Map<String, ?> args) {
-        DescribableModel<T> model = new DescribableModel<>(c)
+        DescribableModel<T> model = DescriptorLookupCache.getPublicCache().modelForClass(c)
         return model?.instantiate(args)
     }
 
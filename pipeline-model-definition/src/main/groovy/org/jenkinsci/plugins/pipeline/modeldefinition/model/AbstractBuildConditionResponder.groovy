@@ -40,8 +40,8 @@ abstract class AbstractBuildConditionResponder<T extends AbstractBuildConditionR
 
     Closure closureForSatisfiedCondition(String conditionName, Object runWrapperObj) {
         if (getMap().containsKey(conditionName)) {
-            BuildCondition condition = BuildCondition.getConditionMethods().get(conditionName)
-            if (condition != null && condition.meetsCondition(runWrapperObj)) {
+            BuildCondition condition = BuildCondition.getConditionMethod(conditionName)
+            if (condition != null && BuildConditionSnapshot.meetsCondition(conditionName, condition, runWrapperObj)) {
                 return ((StepsBlock)getMap().get(conditionName)).getClosure()
             }
         }
@@ -50,10 +50,9 @@ abstract class AbstractBuildConditionResponder<T extends AbstractBuildConditionR
     }
 
     boolean satisfiedConditions(Object runWrapperObj) {
-        Map<String,BuildCondition> conditions = BuildCondition.getConditionMethods()
-
         return BuildCondition.orderedConditionNames.any { conditionName ->
-            getMap().containsKey(conditionName) && conditions.get(conditionName).meetsCondition(runWrapperObj)
+            getMap().containsKey(conditionName) &&
+                BuildConditionSnapshot.meetsCondition(conditionName, BuildCondition.getConditionMethod(conditionName), runWrapperObj)
         }
     }
 }
@@ -31,8 +31,10 @@ import org.jenkinsci.plugins.pipeline.modeldefinition.agent.DeclarativeAgent
 import org.jenkinsci.plugins.pipeline.modeldefinition.agent.DeclarativeAgentDescriptor
 import org.jenkinsci.plugins.pipeline.modeldefinition.agent.impl.None
 import org.jenkinsci.plugins.pipeline.modeldefinition.options.DeclarativeOption
+import org.jenkinsci.plugins.pipeline.modeldefinition.options.impl.CheckoutOnce
 import org.jenkinsci.plugins.pipeline.modeldefinition.options.impl.CheckoutToSubdirectory
 import org.jenkinsci.plugins.pipeline.modeldefinition.options.impl.ContainerPerStage
+import org.jenkinsci.plugins.pipeline.modeldefinition.options.impl.ReuseCheckout
 import org.jenkinsci.plugins.pipeline.modeldefinition.options.impl.SkipDefaultCheckout
 import org.jenkinsci.plugins.scriptsecurity.sandbox.whitelists.Whitelisted
 import org.jenkinsci.plugins.structs.SymbolLookup
@@ -100,6 +102,17 @@ class Agent extends MappedClosure<Object,Agent> implements Serializable {
                     doCheckout = false
                 }
 
+                ReuseCheckout reuseCheckout = (ReuseCheckout) options.get("reuseCheckout")
+                if (reuseCheckout?.isReuseCheckout()) {
+                    a.setReuseCheckout(true)
+                }
+
+                CheckoutOnce checkoutOnce = (CheckoutOnce) options.get("checkoutOnce")
+                if (checkoutOnce?.isCheckoutOnce()) {
+                    a.setCheckoutOnce(true)
+                    a.setCleanBeforeUnstash(checkoutOnce.isCleanBeforeUnstash())
+                }
+
                 CheckoutToSubdirectory subdir = (CheckoutToSubdirectory) options.get("checkoutToSubdirectory")
                 if (subdir?.subdirectory != null && subdir?.subdirectory != "") {
                     a.setSubdirectory(subdir.subdirectory)
@@ -74,6 +74,8 @@ class Environment implements Serializable {
         private CpsScript script
         private Map<String,Closure> closureMap = new HashMap<>()
         private EnvironmentResolver fallback
+        private Set<String> memoizableKeys = new HashSet<>()
+        private Map<String,Object> memoizedValues = new HashMap<>()
 
         @Whitelisted
         EnvironmentResolver() {
@@ -125,6 +127,54 @@ class Environment implements Serializable {
             }
         }
 
+        /**
+         * Whether the value for a key will be the same every time it's evaluated during the build, as determined at
+         * parse time, so that it only needs to be evaluated once.
+         */
+        boolean isMemoizable(String key) {
+            return memoizableKeys != null && memoizableKeys.contains(key)
+        }
+
+        /**
+         * Record the value for a key, if it is memoizable.
+         */
+        void memoizeValue(String key, Object value) {
+            if (isMemoizable(key)) {
+                if (memoizedValues == null) {
+                    memoizedValues = new HashMap<>()
+                }
+                memoizedValues.put(key, value)
+            }
+        }
+
+        /**
+         * Whether a value has already been recorded for a key, here or in the fallback {@link EnvironmentResolver}.
+         */
+        @Whitelisted
+        boolean hasMemoizedValue(String key) {
+            if (closureMap.containsKey(key)) {
+                return memoizedValues != null && memoizedValues.containsKey(key)
+            } else if (fallback != null) {
+                return fallback.hasMemoizedValue(key)
+            } else {
+                return false
+            }
+        }
+
+        /**
+         * Get the value recorded for a key, here or in the fallback {@link EnvironmentResolver}.
+         */
+        @Whitelisted
+        Object getMemoizedValue(String key) {
+            if (closureMap.containsKey(key)) {
+                return memoizedValues?.get(key)
+            } else if (fallback != null) {
+                return fallback.getMemoizedValue(key)
+            } else {
+                return null
+            }
+        }
+
         /**
          * Called at runtime from inside value closures for fetching a variable defined outside of the resolver.
          */
@@ -153,6 +203,17 @@ class Environment implements Serializable {
 
             return resolver
         }
+
+        /**
+         * Called in AST transformation to instantiate the resolver, along with the keys whose values can be memoized.
+         */
+        @Whitelisted
+        static EnvironmentResolver instanceFromMap(Map<String, Closure> closureMap, List<String> memoizableKeys) {
+            EnvironmentResolver resolver = instanceFromMap(closureMap)
+            resolver.memoizableKeys.addAll(memoizableKeys)
+
+            return resolver
+        }
     }
 
 }
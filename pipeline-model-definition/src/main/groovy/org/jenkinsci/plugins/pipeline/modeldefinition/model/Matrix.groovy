@@ -0,0 +1,94 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2018, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.jenkinsci.plugins.pipeline.modeldefinition.model
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings
+import groovy.transform.EqualsAndHashCode
+import groovy.transform.ToString
+import org.jenkinsci.plugins.scriptsecurity.sandbox.whitelists.Whitelisted
+
+import javax.annotation.Nonnull
+
+/**
+ * The axes of a matrix stage. Only the axes are kept - the individual cells are computed from them as needed when the
+ * stage is run, so a large matrix costs no more to parse, transform or persist than a small one.
+ *
+ * @author Andrew Bayer
+ */
+@ToString
+@EqualsAndHashCode
+@SuppressFBWarnings(value="SE_NO_SERIALVERSIONID")
+class Matrix implements Serializable {
+    LinkedHashMap<String,List<String>> axes = new LinkedHashMap<>()
+
+    @Whitelisted
+    Matrix(Map<String,List<String>> axes) {
+        if (axes != null) {
+            this.axes.putAll(axes)
+        }
+    }
+
+    /**
+     * The number of cells in the matrix, i.e., the product of the number of values for each axis.
+     */
+    int getCellCount() {
+        int count = 1
+        axes.values().each { v ->
+            count *= v.size()
+        }
+        return count
+    }
+
+    /**
+     * Get the axis values for a single cell, with the last axis varying fastest.
+     *
+     * @param index The index of the cell, from 0 to {@link #getCellCount()} - 1.
+     * @return A map of axis name to value for the cell, in axis order.
+     */
+    @Nonnull
+    Map<String,String> cellAt(int index) {
+        List<String> names = new ArrayList<>(axes.keySet())
+        String[] values = new String[names.size()]
+        int remaining = index
+        for (int i = names.size() - 1; i >= 0; i--) {
+            List<String> axisValues = axes.get(names.get(i))
+            values[i] = axisValues.get(remaining % axisValues.size())
+            remaining = remaining.intdiv(axisValues.size())
+        }
+        Map<String,String> cell = new LinkedHashMap<>()
+        for (int i = 0; i < names.size(); i++) {
+            cell.put(names.get(i), values[i])
+        }
+        return cell
+    }
+
+    /**
+     * The stage name to use for a single cell of the matrix stage with the given name.
+     */
+    @Nonnull
+    static String cellName(@Nonnull String stageName, @Nonnull Map<String,String> cell) {
+        return stageName + " (" + cell.collect { k, v -> "${k}=${v}" }.join(", ") + ")"
+    }
+}
@@ -61,6 +61,8 @@ class Stage implements Serializable {
 
     StageInput input
 
+    Matrix matrix
+
     @Deprecated
     Stage(String name, StepsBlock steps, Agent agent, PostStage post, StageConditionals when, Tools tools,
           Environment environment, Stages parallel, boolean failFast) {
@@ -70,6 +72,13 @@ class Stage implements Serializable {
     @Whitelisted
     Stage(String name, StepsBlock steps, Agent agent, PostStage post, StageConditionals when, Tools tools,
           Environment environment, boolean failFast, Stages parallel, StageOptions options, StageInput input) {
+        this(name, steps, agent, post, when, tools, environment, failFast, parallel, options, input, null)
+    }
+
+    @Whitelisted
+    Stage(String name, StepsBlock steps, Agent agent, PostStage post, StageConditionals when, Tools tools,
+          Environment environment, boolean failFast, Stages parallel, StageOptions options, StageInput input,
+          Matrix matrix) {
         this.name = name
         this.steps = steps
         this.agent = agent
@@ -81,6 +90,18 @@ class Stage implements Serializable {
         this.failFast = failFast
         this.options = options
         this.input = input
+        this.matrix = matrix
+    }
+
+    /**
+     * Creates the stage for a single cell of this matrix stage - everything but the name is the same as this stage.
+     *
+     * @param cell The axis values for the cell.
+     * @return A stage named for the cell, without a matrix.
+     */
+    Stage forMatrixCell(Map<String,String> cell) {
+        return new Stage(Matrix.cellName(name, cell), steps, agent, post, when, tools, environment, failFast, parallel,
+            options, input, null)
     }
 
     /**
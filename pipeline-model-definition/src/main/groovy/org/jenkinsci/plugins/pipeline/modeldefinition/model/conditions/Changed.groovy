@@ -41,18 +41,18 @@ class Changed extends BuildCondition {
     @Override
     boolean meetsCondition(@Nonnull WorkflowRun r) {
         // Only look at the previous completed build.
-        WorkflowRun prev = r.getPreviousCompletedBuild()
+        Result prevResult = getPreviousCompletedBuildResult(r)
 
         // Get the *worst* result of either the execution or the run. If the run's result is null, that's effectively
         // SUCCESS.
         Result runResult = combineResults(r)
 
         // If there's no previous build, we're inherently changed.
-        if (prev == null) {
+        if (prevResult == null) {
             return true
         } else {
             // Otherwise, compare the combined execution/run result to the previous result.
-            return runResult != prev.getResult()
+            return runResult != prevResult
         }
     }
 
@@ -41,17 +41,17 @@ class Fixed extends BuildCondition {
     @Override
     boolean meetsCondition(@Nonnull WorkflowRun r) {
         // Only look at the previous completed build.
-        WorkflowRun prev = r.getPreviousCompletedBuild()
+        Result prevResult = getPreviousCompletedBuildResult(r)
 
         // Get the *worst* result of either the execution or the run. If the run's result is null, that's effectively
         // SUCCESS.
         Result runResult = combineResults(r)
 
         // If there's no previous build, we can't exactly be fixed, can we?
-        if (prev == null) {
+        if (prevResult == null) {
             return false
         } else {
-            return runResult == Result.SUCCESS && prev.getResult() in [Result.FAILURE, Result.UNSTABLE]
+            return runResult == Result.SUCCESS && prevResult in [Result.FAILURE, Result.UNSTABLE]
         }
     }
 
@@ -41,17 +41,17 @@ class Regression extends BuildCondition {
     @Override
     boolean meetsCondition(@Nonnull WorkflowRun r) {
         // Only look at the previous completed build.
-        WorkflowRun prev = r.getPreviousCompletedBuild()
+        Result prevResult = getPreviousCompletedBuildResult(r)
 
         // Get the *worst* result of either the execution or the run. If the run's result is null, that's effectively
         // SUCCESS.
         Result runResult = combineResults(r)
 
         // If there's no previous build, we can't exactly be regressing, can we?
-        if (prev == null) {
+        if (prevResult == null) {
             return false
         } else {
-            return runResult.isWorseThan(prev.getResult())
+            return runResult.isWorseThan(prevResult)
         }
     }
 
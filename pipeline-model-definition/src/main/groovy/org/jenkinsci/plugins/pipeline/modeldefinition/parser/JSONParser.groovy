@@ -166,7 +166,7 @@ class JSONParser implements Parser {
             stage.branches.add(parseBranch(branches.append(JsonPointer.of(i))))
         }
 
-        if (j.node.has("failFast") && (stage.branches.size() > 1 || j.node.has("parallel")))  {
+        if (j.node.has("failFast") && (stage.branches.size() > 1 || j.node.has("parallel") || j.node.has("matrix")))  {
             stage.failFast = j.node.get("failFast")?.asBoolean()
         }
 
@@ -179,6 +179,10 @@ class JSONParser implements Parser {
             stage.input = parseInput(j.append(JsonPointer.of("input")))
         }
 
+        if (j.node.has("matrix")) {
+            stage.matrix = parseMatrix(j.append(JsonPointer.of("matrix")))
+        }
+
         if (j.node.has("environment")) {
             stage.environment = parseEnvironment(j.append(JsonPointer.of("environment")))
         }
@@ -225,6 +229,23 @@ class JSONParser implements Parser {
         return input
     }
 
+    @CheckForNull ModelASTMatrix parseMatrix(JsonTree j) {
+        ModelASTMatrix matrix = new ModelASTMatrix(j)
+
+        JsonTree axes = j.append(JsonPointer.of("axes"))
+        axes?.node?.eachWithIndex { JsonNode entry, int i ->
+            JsonTree a = axes.append(JsonPointer.of(i))
+            ModelASTMatrixAxis axis = new ModelASTMatrixAxis(a)
+            axis.name = parseValue(a.append(JsonPointer.of("name")))
+            JsonTree values = a.append(JsonPointer.of("values"))
+            values?.node?.eachWithIndex { JsonNode v, int k ->
+                axis.values.add(parseValue(values.append(JsonPointer.of(k))))
+            }
+            matrix.axes.add(axis)
+        }
+        return matrix
+    }
+
     @CheckForNull ModelASTBranch parseBranch(JsonTree j) {
         ModelASTBranch branch = new ModelASTBranch(j)
         branch.name = j.node.get("name").asText()
@@ -270,7 +270,8 @@ class ModelParser implements Parser {
         // Only transform the pipeline {} to pipeline({ return root }) if this is being called in the compiler and there
         // are no errors.
         if (!secondaryRun && errorCollector.errorCount == 0) {
-            pipelineBlock.whole.arguments = new RuntimeASTTransformer().transform(r, build)
+            ClassNode scriptClass = sourceUnit?.AST?.classes?.find { it.isScript() }
+            pipelineBlock.whole.arguments = new RuntimeASTTransformer(scriptClass).transform(r, build)
             // Lazily evaluate prettyPrint(...) - i.e., only if AST_DEBUG_LOGGING is true.
             astDebugLog {
                 "Transformed runtime AST: ${ -> prettyPrint(pipelineBlock.whole.arguments)}"
@@ -568,6 +569,9 @@ class ModelParser implements Parser {
                         case 'input':
                             stage.input = parseInput(s)
                             break
+                        case 'matrix':
+                            stage.matrix = parseMatrix(s)
+                            break
                         case 'tools':
                             stage.tools = parseTools(s)
                             break
@@ -646,6 +650,35 @@ class ModelParser implements Parser {
         return input
     }
 
+    ModelASTMatrix parseMatrix(Statement statement) {
+        ModelASTMatrix matrix = new ModelASTMatrix(statement)
+
+        def m = matchBlockStatement(statement)
+        if (m == null) {
+            errorCollector.error(matrix, Messages.ModelParser_ExpectedBlockFor("matrix"))
+            return matrix
+        }
+        eachStatement(m.body.code) { s ->
+            def mc = matchMethodCall(s)
+            if (mc == null || parseMethodName(mc) != "axis") {
+                errorCollector.error(matrix, Messages.ModelParser_ExpectedMatrixAxis(getSourceText(s)))
+            } else {
+                ModelASTMatrixAxis axis = new ModelASTMatrixAxis(s)
+                List<Expression> args = ((TupleExpression) mc.arguments).expressions
+                if (args.isEmpty()) {
+                    errorCollector.error(axis, Messages.ModelParser_NoArgForField("axis"))
+                } else {
+                    axis.name = parseArgument(args[0])
+                    args.tail().each { a ->
+                        axis.values.add(parseArgument(a))
+                    }
+                }
+                matrix.axes.add(axis)
+            }
+        }
+        return matrix
+    }
+
     ModelASTWhen parseWhen(Statement statement) {
         def stepsBlock = matchBlockStatement(statement)
         BlockStatement block = asBlock(stepsBlock.body.code)
@@ -29,8 +29,17 @@ import hudson.model.JobProperty
 import hudson.model.ParameterDefinition
 import hudson.model.Run
 import hudson.triggers.Trigger
+import org.codehaus.groovy.ast.ASTNode
+import org.codehaus.groovy.ast.ClassCodeVisitorSupport
 import org.codehaus.groovy.ast.ClassHelper
+import org.codehaus.groovy.ast.ClassNode
 import org.codehaus.groovy.ast.DynamicVariable
+import org.codehaus.groovy.ast.FieldNode
+import org.codehaus.groovy.ast.MethodNode
+import org.codehaus.groovy.ast.Parameter
+import org.codehaus.groovy.ast.PropertyNode
+import org.codehaus.groovy.ast.Variable
+import org.codehaus.groovy.ast.VariableScope
 import org.codehaus.groovy.ast.expr.*
 import org.codehaus.groovy.ast.stmt.BlockStatement
 import org.codehaus.groovy.ast.stmt.CatchStatement
@@ -41,6 +50,7 @@ import org.codehaus.groovy.ast.stmt.ReturnStatement
 import org.codehaus.groovy.ast.stmt.Statement
 import org.codehaus.groovy.ast.stmt.TryCatchStatement
 import org.codehaus.groovy.ast.stmt.WhileStatement
+import org.codehaus.groovy.control.SourceUnit
 import org.codehaus.groovy.syntax.Types
 import org.jenkinsci.plugins.pipeline.modeldefinition.Utils
 import org.jenkinsci.plugins.pipeline.modeldefinition.actions.ExecutionModelAction
@@ -54,6 +64,7 @@ import org.jenkinsci.plugins.workflow.steps.StepDescriptor
 
 import javax.annotation.CheckForNull
 import javax.annotation.Nonnull
+import java.lang.reflect.Modifier
 
 import static org.codehaus.groovy.ast.tools.GeneralUtils.*
 import static org.jenkinsci.plugins.pipeline.modeldefinition.parser.ASTParserUtils.*
@@ -64,7 +75,26 @@ import static org.jenkinsci.plugins.pipeline.modeldefinition.parser.ASTParserUti
  */
 @SuppressFBWarnings(value="SE_NO_SERIALVERSIONID")
 class RuntimeASTTransformer {
+    /**
+     * Prefix for the names of the methods generated on the script class to hold each stage's runtime AST.
+     */
+    static final String STAGE_METHOD_PREFIX = "___declarativeStage"
+
+    /**
+     * The script class the pipeline is defined in, if any. When set, each stage's runtime AST is generated in its own
+     * method on this class rather than inline in the closure returning the {@link Root}, so that large pipelines
+     * don't exceed the JVM's per-method bytecode size limit.
+     */
+    private final ClassNode scriptClass
+
+    private int stageMethodCount = 0
+
     RuntimeASTTransformer() {
+        this(null)
+    }
+
+    RuntimeASTTransformer(@CheckForNull ClassNode scriptClass) {
+        this.scriptClass = scriptClass
     }
 
     /**
@@ -181,6 +211,7 @@ class RuntimeASTTransformer {
         keys.addAll(original.variables.findAll { k, v -> v instanceof ModelASTValue }.collect { k, v -> k.key })
 
         MapExpression closureMap = new MapExpression()
+        Map<String,Expression> untransformed = new LinkedHashMap<>()
 
         original.variables.each { k, v ->
             // Filter for only the desired value type - ModelASTValue for env vars, ModelASTInternalFunctionCall for
@@ -195,6 +226,7 @@ class RuntimeASTTransformer {
                             toTransform = args.get(0)
                         }
                     }
+                    untransformed.put(k.key, toTransform)
                     Expression expr = translateEnvironmentValue(k.key, toTransform, keys)
                     if (expr != null) {
                         if (expr instanceof ClosureExpression) {
@@ -209,8 +241,71 @@ class RuntimeASTTransformer {
             }
         }
 
+        ListExpression memoizable = new ListExpression()
+        constantEnvironmentKeys(untransformed, keys).each { k ->
+            memoizable.addExpression(constX(k))
+        }
+
         return callX(ClassHelper.make(Environment.EnvironmentResolver.class), "instanceFromMap",
-            args(closureMap))
+            args(closureMap, memoizable))
+    }
+
+    /**
+     * Find the keys whose values will be the same every time they're evaluated during a build, so that they only need
+     * to be evaluated once. That's the case if a value is made up only of literals, parameters and other such keys.
+     *
+     * @param values The untransformed value expressions for the keys in this resolver.
+     * @param envKeys The environment variable keys in this environment.
+     * @return The keys whose values can be memoized.
+     */
+    private Set<String> constantEnvironmentKeys(Map<String,Expression> values, Set<String> envKeys) {
+        Set<String> constantKeys = new HashSet<>()
+        boolean changed = true
+        // Keys can refer to each other in any order, so keep going until nothing more is found to be constant.
+        while (changed) {
+            changed = false
+            values.each { k, v ->
+                if (!constantKeys.contains(k) && isConstantEnvironmentValue(k, v, envKeys, constantKeys)) {
+                    constantKeys.add(k)
+                    changed = true
+                }
+            }
+        }
+        return constantKeys
+    }
+
+    private boolean isConstantEnvironmentValue(String targetVar, Expression expr, Set<String> envKeys,
+                                               Set<String> constantKeys) {
+        if (expr instanceof ConstantExpression) {
+            return true
+        } else if (expr instanceof GStringExpression) {
+            return ((GStringExpression) expr).values.every {
+                isConstantEnvironmentValue(targetVar, it, envKeys, constantKeys)
+            }
+        } else if (expr instanceof BinaryExpression && ((BinaryExpression) expr).operation.type == Types.PLUS) {
+            BinaryExpression binExpr = (BinaryExpression) expr
+            return isConstantEnvironmentValue(targetVar, binExpr.leftExpression, envKeys, constantKeys) &&
+                isConstantEnvironmentValue(targetVar, binExpr.rightExpression, envKeys, constantKeys)
+        } else if (expr instanceof PropertyExpression &&
+            ((PropertyExpression) expr).objectExpression instanceof VariableExpression) {
+            PropertyExpression propExpr = (PropertyExpression) expr
+            String objectName = ((VariableExpression) propExpr.objectExpression).name
+            String propName = propExpr.propertyAsString
+            if (objectName == "params") {
+                return propName != null
+            } else if (objectName == "env") {
+                return isConstantEnvironmentReference(targetVar, propName, envKeys, constantKeys)
+            }
+        } else if (expr instanceof VariableExpression) {
+            return isConstantEnvironmentReference(targetVar, ((VariableExpression) expr).name, envKeys, constantKeys)
+        }
+        return false
+    }
+
+    private boolean isConstantEnvironmentReference(String targetVar, String name, Set<String> envKeys,
+                                                   Set<String> constantKeys) {
+        // A reference to the variable being set is to its previous value, from outside this environment.
+        return name != null && name != targetVar && envKeys.contains(name) && constantKeys.contains(name)
     }
 
     /**
@@ -487,8 +582,10 @@ class RuntimeASTTransformer {
     /**
      * Generates the method call for fetching the closure for a given environment key and calling it.
      */
-    private MethodCallExpression environmentValueGetterCall(String name) {
-        return callX(callThisX("getClosure", constX(name)), "call")
+    private Expression environmentValueGetterCall(String name) {
+        return ternaryX(callThisX("hasMemoizedValue", constX(name)),
+            callThisX("getMemoizedValue", constX(name)),
+            callX(callThisX("getClosure", constX(name)), "call"))
     }
 
     /**
@@ -653,7 +750,8 @@ class RuntimeASTTransformer {
                     constX(original.failFast != null ? original.failFast : false),
                     transformStages(original.parallel),
                     transformOptions(original.options),
-                    transformStageInput(original.input, original.name)))
+                    transformStageInput(original.input, original.name),
+                    transformMatrix(original.matrix)))
         }
 
         return constX(null)
@@ -676,6 +774,29 @@ class RuntimeASTTransformer {
         return constX(null)
     }
 
+    /**
+     * Generates the AST (to be CPS-transformed) for instantiating {@link Matrix}. Only the axes are generated - the
+     * cells are computed from them at runtime.
+     *
+     * @param original The parsed AST model
+     * @return The AST for a constructor call for {@link Matrix}, or the constant null expression if the original
+     * cannot be transformed.
+     */
+    Expression transformMatrix(@CheckForNull ModelASTMatrix original) {
+        if (isGroovyAST(original) && !original.axes.isEmpty()) {
+            MapExpression axes = new MapExpression()
+            original.axes.each { axis ->
+                ListExpression values = new ListExpression()
+                axis.values.each { v ->
+                    values.addExpression(constX(v.value.toString()))
+                }
+                axes.addMapEntryExpression(constX(axis.name.value.toString()), values)
+            }
+            return ctorX(ClassHelper.make(Matrix.class), args(axes))
+        }
+        return constX(null)
+    }
+
     private Expression valueOrNull(@CheckForNull ModelASTValue value, Object defaultValue = null) {
         if (value?.sourceLocation instanceof Expression) {
             return (Expression)value.sourceLocation
@@ -723,7 +844,7 @@ class RuntimeASTTransformer {
         if (isGroovyAST(original) && !original.stages.isEmpty()) {
             ListExpression argList = new ListExpression()
             original.stages.each { s ->
-                argList.addExpression(transformStage(s))
+                argList.addExpression(stageOrStageMethodCall(s))
             }
 
             return ctorX(ClassHelper.make(Stages.class), args(argList))
@@ -732,6 +853,102 @@ class RuntimeASTTransformer {
         return constX(null)
     }
 
+    /**
+     * Generates the AST for a {@link Stage}, moving it into a method on the script class if possible so that the
+     * closure returning the {@link Root} stays small no matter how many stages there are. Stages referencing local
+     * variables or parameters from outside the stage can't be moved, since those aren't visible from another method,
+     * and are generated inline as before.
+     *
+     * @param original The parsed AST model
+     * @return Either a call to the generated method or the inline AST from {@link #transformStage(ModelASTStage)}.
+     */
+    private Expression stageOrStageMethodCall(@Nonnull ModelASTStage original) {
+        Expression stage = transformStage(original)
+        if (scriptClass != null && original.sourceLocation instanceof ASTNode &&
+            !referencesOuterLocals((ASTNode) original.sourceLocation)) {
+            String methodName = STAGE_METHOD_PREFIX + stageMethodCount++
+            while (!scriptClass.getDeclaredMethods(methodName).isEmpty()) {
+                methodName = STAGE_METHOD_PREFIX + stageMethodCount++
+            }
+            MethodNode method = new MethodNode(methodName, Modifier.PUBLIC, ClassHelper.OBJECT_TYPE,
+                Parameter.EMPTY_ARRAY, ClassNode.EMPTY_ARRAY, block(returnS(stage)))
+            method.setVariableScope(new VariableScope())
+            method.setSourcePosition((ASTNode) original.sourceLocation)
+            scriptClass.addMethod(method)
+            return callThisX(methodName)
+        }
+        return stage
+    }
+
+    /**
+     * Checks whether the given node refers to any local variable or parameter which isn't declared within the node
+     * itself.
+     */
+    private static boolean referencesOuterLocals(@Nonnull ASTNode node) {
+        Set<Variable> declared = Collections.newSetFromMap(new IdentityHashMap<Variable,Boolean>())
+        List<Variable> referenced = []
+        ClassCodeVisitorSupport visitor = new ClassCodeVisitorSupport() {
+            @Override
+            protected SourceUnit getSourceUnit() {
+                return null
+            }
+
+            @Override
+            void visitBlockStatement(BlockStatement b) {
+                addDeclared(b.variableScope)
+                super.visitBlockStatement(b)
+            }
+
+            @Override
+            void visitClosureExpression(ClosureExpression c) {
+                addDeclared(c.variableScope)
+                c.parameters?.each { declared.add(it) }
+                super.visitClosureExpression(c)
+            }
+
+            @Override
+            void visitForLoop(ForStatement f) {
+                addDeclared(f.variableScope)
+                declared.add(f.variable)
+                super.visitForLoop(f)
+            }
+
+            @Override
+            void visitCatchStatement(CatchStatement c) {
+                declared.add(c.variable)
+                super.visitCatchStatement(c)
+            }
+
+            @Override
+            void visitDeclarationExpression(DeclarationExpression d) {
+                if (d.isMultipleAssignmentDeclaration()) {
+                    declared.addAll(d.tupleExpression.expressions.findAll { it instanceof VariableExpression })
+                } else {
+                    declared.add(d.variableExpression)
+                }
+                super.visitDeclarationExpression(d)
+            }
+
+            @Override
+            void visitVariableExpression(VariableExpression v) {
+                Variable accessed = v.accessedVariable
+                if (accessed != null && !v.isThisExpression() && !v.isSuperExpression() &&
+                    !(accessed instanceof DynamicVariable) && !(accessed instanceof FieldNode) &&
+                    !(accessed instanceof PropertyNode)) {
+                    referenced.add(accessed)
+                }
+                super.visitVariableExpression(v)
+            }
+
+            private void addDeclared(@CheckForNull VariableScope scope) {
+                scope?.declaredVariablesIterator?.each { declared.add(it) }
+            }
+        }
+        node.visit(visitor)
+
+        return referenced.any { !declared.contains(it) }
+    }
+
     /**
      * Generates the AST (to be CPS-transformed) for instantiating {@link StepsBlock} for a {@link Stage}.
      *
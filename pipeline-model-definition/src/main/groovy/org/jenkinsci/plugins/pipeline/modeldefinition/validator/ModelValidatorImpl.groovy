@@ -612,6 +612,52 @@ class ModelValidatorImpl implements ModelValidator {
         return validateFromContributors(input, valid)
     }
 
+    boolean validateElement(@Nonnull ModelASTMatrix matrix) {
+        boolean valid = true
+        if (matrix.axes.isEmpty()) {
+            errorCollector.error(matrix, Messages.ModelValidatorImpl_NoMatrixAxes())
+            valid = false
+        }
+        List<String> axisNames = []
+        matrix.axes.each { axis ->
+            if (axis.name == null) {
+                // Validation failed at compilation time so move on.
+                valid = false
+            } else if (!axis.name.isLiteral() || !(axis.name.value instanceof String) ||
+                !Utils.validEnvIdentifier((String) axis.name.value)) {
+                errorCollector.error(axis.name, Messages.ModelValidatorImpl_InvalidMatrixAxisName(axis.name.toGroovy()))
+                valid = false
+            } else {
+                String axisName = (String) axis.name.value
+                if (axisNames.contains(axisName)) {
+                    errorCollector.error(axis.name, Messages.ModelValidatorImpl_DuplicateMatrixAxis(axisName))
+                    valid = false
+                }
+                axisNames.add(axisName)
+                if (axis.values.isEmpty()) {
+                    errorCollector.error(axis, Messages.ModelValidatorImpl_NoMatrixAxisValues(axisName))
+                    valid = false
+                }
+                List<String> values = []
+                axis.values.each { v ->
+                    // Values are expanded into cells at runtime without evaluating any code, so they must be literals.
+                    if (!v.isLiteral()) {
+                        errorCollector.error(v, Messages.ModelValidatorImpl_MatrixAxisValueNotLiteral(axisName))
+                        valid = false
+                    } else if (values.contains(v.value.toString())) {
+                        // Compared as strings, since that's how they end up in the environment - 8 and '8' are the same.
+                        errorCollector.error(v, Messages.ModelValidatorImpl_DuplicateMatrixAxisValue(v.value, axisName))
+                        valid = false
+                    } else {
+                        values.add(v.value.toString())
+                    }
+                }
+            }
+        }
+
+        return validateFromContributors(matrix, valid)
+    }
+
     boolean validateElement(@Nonnull ModelASTOption opt) {
         boolean valid = true
 
@@ -675,7 +721,14 @@ class ModelValidatorImpl implements ModelValidator {
 
     boolean validateElement(@Nonnull ModelASTStage stage, boolean isNested) {
         boolean valid = true
-        if (isNested && (stage.branches.size() > 1 || stage.parallel != null)) {
+        if (stage.matrix != null && (isNested || stage.parallel != null)) {
+            if (isNested) {
+                errorCollector.error(stage.matrix, Messages.ModelValidatorImpl_NoNestedWithinNestedStages())
+            } else {
+                errorCollector.error(stage.matrix, Messages.ModelValidatorImpl_BothMatrixAndParallel(stage.name))
+            }
+            valid = false
+        } else if (isNested && (stage.branches.size() > 1 || stage.parallel != null)) {
             ModelASTElement errorElement
             if (stage.parallel != null) {
                 errorElement = stage.parallel
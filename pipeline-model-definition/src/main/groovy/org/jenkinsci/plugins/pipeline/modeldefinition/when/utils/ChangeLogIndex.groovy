@@ -0,0 +1,289 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2018, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.pipeline.modeldefinition.when.utils
+
+import com.google.common.cache.Cache
+import com.google.common.cache.CacheBuilder
+import com.google.common.util.concurrent.UncheckedExecutionException
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings
+import hudson.scm.ChangeLogSet
+import jenkins.model.Jenkins
+import org.jenkinsci.plugins.pipeline.modeldefinition.actions.ChangeRequestChangeLogAction
+import org.jenkinsci.plugins.pipeline.modeldefinition.when.impl.ChangeLogConditional
+import org.jenkinsci.plugins.workflow.job.WorkflowRun
+import org.kohsuke.accmod.Restricted
+import org.kohsuke.accmod.restrictions.NoExternalUse
+
+import javax.annotation.CheckForNull
+import javax.annotation.Nonnull
+import java.util.concurrent.Callable
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.TimeUnit
+import java.util.regex.Pattern
+
+/**
+ * A flattened view of the changelog for a build, built once and shared by every {@code changeset} and
+ * {@code changelog} condition evaluated in that build. Affected paths are normalized to use '/' and kept sorted so
+ * that globs with a literal prefix only need to look at the paths sharing that prefix, and commit messages are kept
+ * as a flat list. Match results are remembered per pattern. The index is rebuilt if more changesets show up on the
+ * build, i.e., after another checkout. Indexes are keyed by the build's externalizable ID rather than the build itself,
+ * since the changesets refer back to the build, along with whether all builds are examined and the number of changesets.
+ *
+ * When examining all builds of a change request, the changes from earlier builds come from the
+ * {@link ChangeRequestChangeLogAction} summary rather than from loading each earlier build.
+ */
+@Restricted(NoExternalUse.class)
+@SuppressFBWarnings(value="SE_NO_SERIALVERSIONID")
+class ChangeLogIndex {
+    private static final Cache<String, ChangeLogIndex> INDEXES = CacheBuilder.newBuilder()
+        .expireAfterAccess(10, TimeUnit.MINUTES)
+        .maximumSize(100)
+        .build()
+
+    private final WorkflowRun run
+    private final boolean examinedAllBuilds
+
+    private final List<ChangeLogSet.Entry> entries = []
+    private List<ChangeLogSet.Entry> allEntries
+    private final String[] paths
+    private final boolean prefixSearchable
+    private String[] foldedPaths
+    private final List<String> titles = []
+    private final List<String> comments = []
+
+    private final Map<String, Boolean> globResults = [:]
+    private final Map<String, Boolean> messageResults = [:]
+
+    private ChangeLogIndex(@Nonnull WorkflowRun run, boolean examineAllBuilds) {
+        this.run = run
+        this.examinedAllBuilds = examineAllBuilds
+
+        Class<?> gitChangeSetClass = gitChangeSetClass()
+        SortedSet<String> allPaths = new TreeSet<>()
+        run.getChangeSets().each { ChangeLogSet<? extends ChangeLogSet.Entry> set ->
+            set.each { ChangeLogSet.Entry change ->
+                entries.add(change)
+                allPaths.addAll(normalizedPaths(change))
+                titles.add(title(change, gitChangeSetClass))
+                comments.add(comment(change, gitChangeSetClass))
+            }
+        }
+        if (examineAllBuilds) {
+            ChangeRequestChangeLogAction earlier = earlierChanges(run, gitChangeSetClass)
+            allPaths.addAll(earlier.paths)
+            titles.addAll(earlier.titles)
+            comments.addAll(earlier.comments)
+        }
+        this.paths = allPaths.toArray(new String[allPaths.size()])
+        // Ant ignores empty directories, so paths like that may match even without starting with a glob's prefix.
+        this.prefixSearchable = !allPaths.any { String p -> p.contains("//") }
+    }
+
+    /**
+     * Get the summary of the changelogs of all builds before this one, attaching it to the build if it isn't there
+     * yet. Builds on the summary of the nearest earlier build which has one, so normally only the previous build's
+     * changelog needs to be loaded. Only callers for the same build wait for each other while the summary is built.
+     */
+    @Nonnull
+    private static ChangeRequestChangeLogAction earlierChanges(@Nonnull WorkflowRun run, Class<?> gitChangeSetClass) {
+        synchronized (run) {
+            ChangeRequestChangeLogAction existing = run.getAction(ChangeRequestChangeLogAction.class)
+            if (existing != null) {
+                return existing
+            }
+            List<WorkflowRun> toAdd = []
+            ChangeRequestChangeLogAction base = null
+            for (WorkflowRun b = run.getPreviousBuild(); b != null && base == null; b = b.getPreviousBuild()) {
+                toAdd.add(b)
+                base = b.getAction(ChangeRequestChangeLogAction.class)
+            }
+            ChangeRequestChangeLogAction summary = base != null ? new ChangeRequestChangeLogAction(base) :
+                new ChangeRequestChangeLogAction()
+            // Oldest first, so that messages stay in build order.
+            toAdd.reverseEach { WorkflowRun b ->
+                b.getChangeSets().each { ChangeLogSet<? extends ChangeLogSet.Entry> set ->
+                    set.each { ChangeLogSet.Entry change ->
+                        summary.addChange(normalizedPaths(change), title(change, gitChangeSetClass),
+                            comment(change, gitChangeSetClass))
+                    }
+                }
+            }
+            run.addOrReplaceAction(summary)
+            return summary
+        }
+    }
+
+    private static List<String> normalizedPaths(ChangeLogSet.Entry change) {
+        return change.affectedPaths?.collect { String path -> path.replace('\\', '/') } ?: []
+    }
+
+    private static String title(ChangeLogSet.Entry change, Class<?> gitChangeSetClass) {
+        if (gitChangeSetClass != null && change?.getClass()?.isAssignableFrom(gitChangeSetClass)) {
+            return change.title == null ? "" : (String) change.title
+        }
+        //Something generic
+        return change.msg == null ? "" : change.msg
+    }
+
+    private static String comment(ChangeLogSet.Entry change, Class<?> gitChangeSetClass) {
+        if (gitChangeSetClass != null && change?.getClass()?.isAssignableFrom(gitChangeSetClass)) {
+            return change.comment == null ? "" : (String) change.comment
+        }
+        return change.msg == null ? "" : change.msg
+    }
+
+    /**
+     * Get the index for the given build, building it if it doesn't exist yet or more changesets have been recorded
+     * on the build since it was built.
+     *
+     * @param run The build
+     * @param examineAllBuilds If true, include the changesets of all previous builds as well.
+     * @return The index
+     */
+    @Nonnull
+    static ChangeLogIndex forRun(@Nonnull WorkflowRun run, boolean examineAllBuilds) {
+        // An index for fewer changesets is simply left to expire. The cache only blocks callers asking for the same key
+        // while it is being built.
+        String key = run.getExternalizableId() + ":" + examineAllBuilds + ":" + run.getChangeSets().size()
+        try {
+            return INDEXES.get(key, { new ChangeLogIndex(run, examineAllBuilds) } as Callable<ChangeLogIndex>)
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            throw e.cause
+        }
+    }
+
+    boolean isEmpty() {
+        return titles.isEmpty()
+    }
+
+    /**
+     * The changelog entries. When examining all builds, this has to load the changelogs of every earlier build, since
+     * the {@link ChangeRequestChangeLogAction} summary only keeps paths and messages. Prefer
+     * {@link #anyPathMatches(String, boolean)} and {@link #anyMessageMatches(Pattern, Pattern)}.
+     */
+    @Nonnull
+    synchronized List<ChangeLogSet.Entry> getEntries() {
+        if (examinedAllBuilds && allEntries == null) {
+            List<ChangeLogSet.Entry> all = new ArrayList<>(entries)
+            for (WorkflowRun b = run.getPreviousBuild(); b != null; b = b.getPreviousBuild()) {
+                b.getChangeSets().each { ChangeLogSet<? extends ChangeLogSet.Entry> set ->
+                    all.addAll(set)
+                }
+            }
+            allEntries = all
+        }
+        return Collections.unmodifiableList(examinedAllBuilds ? allEntries : entries)
+    }
+
+    /**
+     * Whether any affected path in the changelog matches the given Ant-style glob.
+     *
+     * @param glob The glob, using '/' as separator.
+     * @param caseSensitive Whether to match case sensitively.
+     * @return true if at least one path matches.
+     */
+    boolean anyPathMatches(@Nonnull String glob, boolean caseSensitive) {
+        return anyPathMatches(GlobMatcher.forPattern(glob, caseSensitive))
+    }
+
+    /**
+     * Whether any affected path in the changelog matches the given glob. Only the paths starting with the glob's
+     * literal prefix are checked, if it has one.
+     *
+     * @param matcher The glob matcher
+     * @return true if at least one path matches.
+     */
+    synchronized boolean anyPathMatches(@Nonnull GlobMatcher matcher) {
+        String key = (matcher.isCaseSensitive() ? "C:" : "I:") + matcher.pattern
+        Boolean result = globResults.get(key)
+        if (result == null) {
+            result = false
+            String prefix = prefixSearchable ? matcher.literalPrefix : null
+            String[] candidates = paths
+            if (!matcher.isCaseSensitive() && prefix != null) {
+                candidates = getFoldedPaths()
+            }
+            int start = 0
+            if (prefix != null) {
+                int pos = Arrays.binarySearch(candidates, prefix)
+                start = pos >= 0 ? pos : -(pos + 1)
+            }
+            for (int i = start; i < candidates.length; i++) {
+                String path = candidates[i]
+                if (prefix != null && !path.startsWith(prefix)) {
+                    break
+                }
+                if (matcher.matches(path)) {
+                    result = true
+                    break
+                }
+            }
+            globResults.put(key, result)
+        }
+        return result
+    }
+
+    /**
+     * Whether any commit in the changelog matches either the single line pattern against its title or the multi-line
+     * pattern against its full comment.
+     *
+     * @param asPattern The pattern to match titles against
+     * @param multiLinePattern The pattern to match full comments against
+     * @return true if at least one commit matches.
+     */
+    synchronized boolean anyMessageMatches(@Nonnull Pattern asPattern, @Nonnull Pattern multiLinePattern) {
+        String key = asPattern.pattern()
+        Boolean result = messageResults.get(key)
+        if (result == null) {
+            result = false
+            for (int i = 0; i < titles.size(); i++) {
+                if (ChangeLogConditional.messageMatches(asPattern, multiLinePattern, titles.get(i), comments.get(i))) {
+                    result = true
+                    break
+                }
+            }
+            messageResults.put(key, result)
+        }
+        return result
+    }
+
+    private String[] getFoldedPaths() {
+        if (foldedPaths == null) {
+            String[] folded = paths.collect { GlobMatcher.fold(it, false) } as String[]
+            Arrays.sort(folded)
+            foldedPaths = folded
+        }
+        return foldedPaths
+    }
+
+    @CheckForNull
+    private static Class<?> gitChangeSetClass() {
+        //Probably running with git plugin
+        try {
+            return Class.forName("hudson.plugins.git.GitChangeSet", true, Jenkins.getInstance().getPluginManager().uberClassLoader)
+        } catch (ClassNotFoundException cnfe) {
+            return null
+        }
+    }
+}
@@ -0,0 +1,245 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2018, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.pipeline.modeldefinition.when.utils
+
+import hudson.EnvVars
+import org.jenkinsci.plugins.pipeline.modeldefinition.Utils
+import org.jenkinsci.plugins.pipeline.modeldefinition.actions.ExecutionModelAction
+import org.jenkinsci.plugins.pipeline.modeldefinition.ast.ModelASTArgumentList
+import org.jenkinsci.plugins.pipeline.modeldefinition.ast.ModelASTEnvironment
+import org.jenkinsci.plugins.pipeline.modeldefinition.ast.ModelASTNamedArgumentList
+import org.jenkinsci.plugins.pipeline.modeldefinition.ast.ModelASTPositionalArgumentList
+import org.jenkinsci.plugins.pipeline.modeldefinition.ast.ModelASTSingleArgument
+import org.jenkinsci.plugins.pipeline.modeldefinition.ast.ModelASTStage
+import org.jenkinsci.plugins.pipeline.modeldefinition.ast.ModelASTStages
+import org.jenkinsci.plugins.pipeline.modeldefinition.ast.ModelASTValue
+import org.jenkinsci.plugins.pipeline.modeldefinition.ast.ModelASTWhen
+import org.jenkinsci.plugins.pipeline.modeldefinition.ast.ModelASTWhenCondition
+import org.jenkinsci.plugins.pipeline.modeldefinition.ast.ModelASTWhenContent
+import org.jenkinsci.plugins.pipeline.modeldefinition.model.Environment
+import org.jenkinsci.plugins.pipeline.modeldefinition.model.Root
+import org.jenkinsci.plugins.pipeline.modeldefinition.when.DeclarativeStageConditional
+import org.jenkinsci.plugins.pipeline.modeldefinition.when.DeclarativeStageConditionalDescriptor
+import org.jenkinsci.plugins.pipeline.modeldefinition.when.PureStageConditional
+import org.jenkinsci.plugins.pipeline.modeldefinition.when.impl.BranchConditional
+import org.jenkinsci.plugins.pipeline.modeldefinition.when.impl.ChangeRequestConditional
+import org.jenkinsci.plugins.pipeline.modeldefinition.when.impl.TagConditional
+import org.jenkinsci.plugins.workflow.cps.CpsScript
+import org.kohsuke.accmod.Restricted
+import org.kohsuke.accmod.restrictions.NoExternalUse
+
+import javax.annotation.CheckForNull
+import javax.annotation.Nonnull
+import java.util.logging.Level
+import java.util.logging.Logger
+
+/**
+ * Evaluates the {@code when} conditions which only depend on values fixed when the build starts, i.e., the branch,
+ * tag and change request environment variables, for every stage in the pipeline up front. The interpreter can then
+ * skip stages whose conditions are known to be false without going through their agent, wrappers and so on, and
+ * without instantiating and running their conditionals one at a time.
+ *
+ * Conditions are only decided up front if every condition that would be evaluated before them is decidable too, so
+ * that nothing which would have run at the time, such as an {@code expression}, is skipped. If the pipeline's or a
+ * parent stage's {@code environment} or {@code input} may override any of the variables, the conditions are left to be
+ * evaluated normally. Changes made to the variables from within steps are not taken into account.
+ *
+ * {@code environment} conditions are always evaluated as the stages are reached, since agents' node properties,
+ * libraries, wrappers and steps can all change arbitrary variables in ways that can't be told from the model.
+ */
+@Restricted(NoExternalUse.class)
+class StaticConditionalEvaluator {
+    /**
+     * Set to true to always evaluate all conditions as the stages are reached.
+     */
+    static boolean DISABLED = Boolean.getBoolean(StaticConditionalEvaluator.class.getName() + ".DISABLED")
+
+    private static final Logger LOGGER = Logger.getLogger(StaticConditionalEvaluator.class.getName())
+
+    private static final Set<String> STATIC_VARIABLES =
+        (["BRANCH_NAME", "TAG_NAME"] + EnvironmentNames.values()*.name()).toSet()
+
+    private final EnvVars env
+
+    private StaticConditionalEvaluator(@Nonnull EnvVars env) {
+        this.env = env
+    }
+
+    /**
+     * Evaluate all the conditions that can be decided up front.
+     *
+     * @param script The script the pipeline is running in
+     * @param root The pipeline
+     * @return A map of stage names to whether their conditions passed, for the stages whose conditions could be
+     * decided up front.
+     */
+    @Nonnull
+    static Map<String, Boolean> evaluate(@Nonnull CpsScript script, @Nonnull Root root) {
+        Map<String, Boolean> results = [:]
+        if (DISABLED || overridesStaticVariables(environmentNames(root.environment))) {
+            return results
+        }
+        try {
+            ModelASTStages stages = script.$build()?.getAction(ExecutionModelAction.class)?.stages
+            if (stages != null) {
+                EnvVars env = script.getProperty("env").getEnvironment() as EnvVars
+                new StaticConditionalEvaluator(env).evaluateStages(stages, results)
+            }
+        } catch (Exception e) {
+            // Everything will just be evaluated normally.
+            LOGGER.log(Level.FINE, "Could not evaluate when conditions up front", e)
+            results.clear()
+        }
+        return results
+    }
+
+    private void evaluateStages(@Nonnull ModelASTStages stages, @Nonnull Map<String, Boolean> results) {
+        stages.stages.each { ModelASTStage stage ->
+            // Conditions are evaluated after any input, which may set variables from its parameters.
+            if (stage.input == null) {
+                if (stage.when != null) {
+                    Boolean result = decideWhen(stage.when)
+                    if (result != null) {
+                        results.put(stage.name, result)
+                    }
+                }
+                // Nested stages' conditions are evaluated with this stage's environment in place.
+                if (stage.parallel != null && !overridesStaticVariables(environmentNames(stage.environment))) {
+                    evaluateStages(stage.parallel, results)
+                }
+            }
+        }
+    }
+
+    @CheckForNull
+    private Boolean decideWhen(@Nonnull ModelASTWhen when) {
+        return decideAll(when.conditions)
+    }
+
+    /**
+     * Mirrors {@code every}: stops at the first false condition, or at the first one that can't be decided.
+     */
+    @CheckForNull
+    private Boolean decideAll(@CheckForNull List<ModelASTWhenContent> conditions) {
+        for (ModelASTWhenContent c : conditions ?: []) {
+            Boolean result = decide(c)
+            if (result == null || !result) {
+                return result
+            }
+        }
+        return true
+    }
+
+    /**
+     * Mirrors {@code any}: stops at the first true condition, or at the first one that can't be decided.
+     */
+    @CheckForNull
+    private Boolean decideAny(@CheckForNull List<ModelASTWhenContent> conditions) {
+        for (ModelASTWhenContent c : conditions ?: []) {
+            Boolean result = decide(c)
+            if (result == null || result) {
+                return result
+            }
+        }
+        return false
+    }
+
+    @CheckForNull
+    private Boolean decide(@Nonnull ModelASTWhenContent content) {
+        if (!(content instanceof ModelASTWhenCondition)) {
+            return null
+        }
+        ModelASTWhenCondition condition = (ModelASTWhenCondition) content
+        switch (condition.name) {
+            case "allOf":
+                return decideAll(condition.children)
+            case "anyOf":
+                return decideAny(condition.children)
+            case "not":
+                if (condition.children?.size() != 1) {
+                    return null
+                }
+                Boolean result = decide(condition.children.first())
+                return result == null ? null : !result
+        }
+
+        DeclarativeStageConditional conditional = instantiate(condition)
+        // TagConditional covers buildingTag too, since BuildingTagConditional extends it.
+        if (conditional instanceof BranchConditional || conditional instanceof TagConditional ||
+            conditional instanceof ChangeRequestConditional) {
+            return ((PureStageConditional) conditional).evaluatePure(env)
+        }
+        return null
+    }
+
+    /**
+     * Instantiate the conditional, if all of its arguments are literals.
+     */
+    @CheckForNull
+    private static DeclarativeStageConditional instantiate(@Nonnull ModelASTWhenCondition condition) {
+        if (condition.children != null && !condition.children.isEmpty()) {
+            return null
+        }
+        DeclarativeStageConditionalDescriptor descriptor = DeclarativeStageConditionalDescriptor.byName(condition.name)
+        if (descriptor == null || !allLiteral(condition.args)) {
+            return null
+        }
+        try {
+            return (DeclarativeStageConditional) Utils.instantiateDescribable(descriptor.clazz,
+                condition.args != null ? condition.args.argListToMap() : [:])
+        } catch (Exception e) {
+            // Leave it to the normal evaluation to report the problem.
+            return null
+        }
+    }
+
+    private static boolean allLiteral(@CheckForNull ModelASTArgumentList args) {
+        List<ModelASTValue> values = []
+        if (args instanceof ModelASTSingleArgument) {
+            values.add(((ModelASTSingleArgument) args).value)
+        } else if (args instanceof ModelASTPositionalArgumentList) {
+            values.addAll(((ModelASTPositionalArgumentList) args).arguments)
+        } else if (args instanceof ModelASTNamedArgumentList) {
+            values.addAll(((ModelASTNamedArgumentList) args).arguments.values())
+        }
+        return values.every { it != null && it.isLiteral() }
+    }
+
+    private static boolean overridesStaticVariables(@Nonnull Collection<String> names) {
+        return names.any { STATIC_VARIABLES.contains(it) }
+    }
+
+    @Nonnull
+    private static Collection<String> environmentNames(@CheckForNull Environment environment) {
+        if (environment == null) {
+            return []
+        }
+        return environment.envResolver.closureMap.keySet() + environment.credsResolver.closureMap.keySet()
+    }
+
+    @Nonnull
+    private static Collection<String> environmentNames(@CheckForNull ModelASTEnvironment environment) {
+        return environment?.variables?.keySet()?.collect { it.key } ?: []
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2018, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.jenkinsci.plugins.pipeline.modeldefinition.actions;
+
+import hudson.model.InvisibleAction;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+/**
+ * Invisible action recording a summary of the changelogs of all <i>earlier</i> builds of a change request, i.e., the
+ * affected paths and commit messages. Each build's summary is derived from the previous build's summary plus the
+ * previous build's own changelog, so that {@code changeset} and {@code changelog} conditions only need to look at the
+ * current build and the one before it, rather than loading every build of the change request.
+ */
+public class ChangeRequestChangeLogAction extends InvisibleAction {
+    private final SortedSet<String> paths = new TreeSet<>();
+    private final List<String> titles = new ArrayList<>();
+    private final List<String> comments = new ArrayList<>();
+
+    public ChangeRequestChangeLogAction() {
+    }
+
+    /**
+     * Alternative constructor for copying an existing {@link ChangeRequestChangeLogAction}'s contents directly.
+     *
+     * @param copyFrom a non-null {@link ChangeRequestChangeLogAction}
+     */
+    public ChangeRequestChangeLogAction(@Nonnull ChangeRequestChangeLogAction copyFrom) {
+        this.paths.addAll(copyFrom.getPaths());
+        this.titles.addAll(copyFrom.getTitles());
+        this.comments.addAll(copyFrom.getComments());
+    }
+
+    /**
+     * Record a single change.
+     *
+     * @param affectedPaths The paths affected by the change, using '/' as separator.
+     * @param title The title of the commit message.
+     * @param comment The full commit message.
+     */
+    public void addChange(@CheckForNull Iterable<String> affectedPaths, @CheckForNull String title,
+                          @CheckForNull String comment) {
+        if (affectedPaths != null) {
+            for (String p : affectedPaths) {
+                paths.add(p);
+            }
+        }
+        titles.add(title == null ? "" : title);
+        comments.add(comment == null ? "" : comment);
+    }
+
+    public SortedSet<String> getPaths() {
+        return Collections.unmodifiableSortedSet(paths);
+    }
+
+    /**
+     * The commit message titles, in the same order as {@link #getComments()}.
+     */
+    public List<String> getTitles() {
+        return Collections.unmodifiableList(titles);
+    }
+
+    /**
+     * The full commit messages, in the same order as {@link #getTitles()}.
+     */
+    public List<String> getComments() {
+        return Collections.unmodifiableList(comments);
+    }
+
+    public boolean isEmpty() {
+        return titles.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return "ChangeRequestChangeLogAction[paths:" + paths.size() + ",messages:" + titles.size() + "]";
+    }
+}
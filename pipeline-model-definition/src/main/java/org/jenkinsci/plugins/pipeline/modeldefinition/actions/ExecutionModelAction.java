@@ -25,25 +25,52 @@
 package org.jenkinsci.plugins.pipeline.modeldefinition.actions;
 
 import hudson.model.InvisibleAction;
+import hudson.model.Run;
+import jenkins.model.RunAction2;
 import org.jenkinsci.plugins.pipeline.modeldefinition.ast.ModelASTStages;
 
+import javax.annotation.Nonnull;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Holds the model for the {@code pipeline} blocks evaluated in a run. The model is kept in the job's
+ * {@link ExecutionModelStore} rather than in {@code build.xml}, with the run only recording its hash, and is only read
+ * when it's asked for, so that loading the run itself stays cheap.
+ */
+public class ExecutionModelAction extends InvisibleAction implements RunAction2 {
+    private static final Logger LOGGER = Logger.getLogger(ExecutionModelAction.class.getName());
 
-public class ExecutionModelAction extends InvisibleAction {
     private ModelASTStages stages;
     private String stagesUUID;
-    private List<ModelASTStages> stagesList = new ArrayList<>();
+    /**
+     * The stages, if they are kept in {@code build.xml} - i.e., for runs from before the stages were stored separately,
+     * if storing them failed, or until this action is attached to a run.
+     */
+    private List<ModelASTStages> stagesList;
+    /**
+     * The hashes of the stages in the {@link ExecutionModelStore}, by stages UUID.
+     */
+    private Map<String, String> stagesHashes;
+    private transient List<ModelASTStages> loadedStagesList;
+    private transient Run<?,?> run;
 
     public ExecutionModelAction(ModelASTStages s) {
+        this.stagesList = new ArrayList<>();
         this.stagesList.add(s);
         this.stages = null;
     }
 
     public ExecutionModelAction(List<ModelASTStages> s) {
-        this.stagesList.addAll(s);
+        this.stagesList = new ArrayList<>(s);
         this.stages = null;
     }
 
@@ -59,8 +86,19 @@ public class ExecutionModelAction extends InvisibleAction {
         return this;
     }
 
-    public ModelASTStages getStages() {
-        for (ModelASTStages s : stagesList) {
+    @Override
+    public synchronized void onAttached(Run<?, ?> r) {
+        this.run = r;
+        storeStages();
+    }
+
+    @Override
+    public synchronized void onLoad(Run<?, ?> r) {
+        this.run = r;
+    }
+
+    public synchronized ModelASTStages getStages() {
+        for (ModelASTStages s : currentStagesList()) {
             if (s.getUuid().toString().equals(stagesUUID)) {
                 return s;
             }
@@ -68,6 +106,14 @@ public class ExecutionModelAction extends InvisibleAction {
         return null;
     }
 
+    /**
+     * The hashes of this run's stages in the {@link ExecutionModelStore}, if they are stored there.
+     */
+    @Nonnull
+    synchronized Collection<String> getStoredHashes() {
+        return stagesHashes != null ? new ArrayList<>(stagesHashes.values()) : Collections.<String>emptyList();
+    }
+
     public String getStagesUUID() {
         return stagesUUID;
     }
@@ -76,11 +122,67 @@ public class ExecutionModelAction extends InvisibleAction {
         this.stagesUUID = s;
     }
 
-    public List<ModelASTStages> getStagesList() {
-        return Collections.unmodifiableList(stagesList);
+    public synchronized List<ModelASTStages> getStagesList() {
+        return Collections.unmodifiableList(currentStagesList());
     }
 
-    public void addStages(ModelASTStages s) {
-        this.stagesList.add(s);
+    public synchronized void addStages(ModelASTStages s) {
+        List<ModelASTStages> all = new ArrayList<>(currentStagesList());
+        all.add(s);
+        this.stagesList = all;
+        storeStages();
+    }
+
+    @Nonnull
+    private List<ModelASTStages> currentStagesList() {
+        if (stagesList != null) {
+            return stagesList;
+        }
+        if (loadedStagesList == null) {
+            loadedStagesList = loadStages();
+        }
+        return loadedStagesList;
+    }
+
+    /**
+     * Move the stages from {@link #stagesList} to the job's {@link ExecutionModelStore}, if we're attached to a run. If
+     * that fails, they are left where they are and so end up in {@code build.xml} as before.
+     */
+    private void storeStages() {
+        if (run == null || stagesList == null) {
+            return;
+        }
+        try {
+            Map<String, String> hashes = new LinkedHashMap<>();
+            for (ModelASTStages s : stagesList) {
+                hashes.put(s.getUuid().toString(), ExecutionModelStore.store(run.getParent(), s));
+            }
+            stagesHashes = hashes;
+            loadedStagesList = stagesList;
+            stagesList = null;
+        } catch (IOException | RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Failed to store the pipeline model for " + run, e);
+        }
+    }
+
+    @Nonnull
+    private List<ModelASTStages> loadStages() {
+        if (run == null || stagesHashes == null) {
+            return Collections.emptyList();
+        }
+        List<ModelASTStages> loaded = new ArrayList<>();
+        for (Map.Entry<String, String> e : stagesHashes.entrySet()) {
+            try {
+                ModelASTStages s = ExecutionModelStore.load(run.getParent(), e.getValue(), UUID.fromString(e.getKey()));
+                if (s != null) {
+                    loaded.add(s);
+                } else {
+                    LOGGER.log(Level.WARNING, "The pipeline model {0} for {1} is missing", new Object[]{e.getValue(), run});
+                }
+            } catch (IOException | IllegalArgumentException x) {
+                LOGGER.log(Level.WARNING, "Failed to load the pipeline model " + e.getValue() + " for " + run, x);
+            }
+        }
+        return loaded;
     }
 }
@@ -0,0 +1,246 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2018, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.jenkinsci.plugins.pipeline.modeldefinition.actions;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import hudson.Extension;
+import hudson.Util;
+import hudson.model.Job;
+import hudson.model.Run;
+import hudson.model.listeners.RunListener;
+import org.jenkinsci.plugins.pipeline.modeldefinition.ast.ModelASTStages;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.WeakHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Stores the {@link ModelASTStages} recorded by {@link ExecutionModelAction} once per job, keyed by a hash of their
+ * content, since consecutive builds of a job almost always have the same model. Each build only keeps the hash and
+ * its own stages UUID, and builds loaded at the same time share a single copy of the model's stages.
+ *
+ * When a build is deleted, the models it used are deleted too, unless another build of the job still uses them. Builds
+ * are checked newest first, so normally only the latest build needs to be looked at to find a model still in use.
+ */
+@Restricted(NoExternalUse.class)
+public class ExecutionModelStore {
+    private static final Logger LOGGER = Logger.getLogger(ExecutionModelStore.class.getName());
+
+    /**
+     * The name of the directory in the job's root directory the models are stored in.
+     */
+    static final String STORE_DIR = "declarative-models";
+
+    /**
+     * Models already read from the store, by file. Only softly held, and bounded, since they're only needed again if
+     * another build with the same model is loaded.
+     */
+    private static final Cache<File, ModelASTStages> CACHE = CacheBuilder.newBuilder()
+            .softValues()
+            .maximumSize(200)
+            .build();
+
+    /**
+     * The UUID the stages are stored with, in place of the build's own.
+     */
+    private static final UUID STORED_UUID = new UUID(0, 0);
+
+    /**
+     * Locks serializing storing and pruning for each job, so a model isn't pruned just as another build starts using
+     * it.
+     */
+    private static final Map<Job<?,?>, Object> LOCKS = new WeakHashMap<>();
+
+    private ExecutionModelStore() {
+    }
+
+    /**
+     * Store the given stages for the job, unless identical stages are already stored.
+     *
+     * @return The hash to load the stages with later.
+     */
+    @Nonnull
+    public static String store(@Nonnull Job<?,?> job, @Nonnull ModelASTStages stages) throws IOException {
+        byte[] xml = toXml(stages);
+        String hash = hash(xml);
+        File file = modelFile(job, hash);
+        synchronized (lockFor(job)) {
+            if (!file.isFile()) {
+                File dir = file.getParentFile();
+                if (!dir.isDirectory() && !dir.mkdirs() && !dir.isDirectory()) {
+                    throw new IOException("Failed to create " + dir);
+                }
+                File tmp = File.createTempFile(hash, ".tmp", dir);
+                try {
+                    try (OutputStream out = new GZIPOutputStream(new FileOutputStream(tmp))) {
+                        out.write(xml);
+                    }
+                    Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                } finally {
+                    Files.deleteIfExists(tmp.toPath());
+                }
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * Load the stages stored for the job with the given hash.
+     *
+     * @param uuid The UUID the returned stages should have, since that differs from build to build.
+     * @return The stages, or null if there are no stages stored with that hash.
+     */
+    @CheckForNull
+    public static ModelASTStages load(@Nonnull Job<?,?> job, @Nonnull String hash, @Nonnull UUID uuid) throws IOException {
+        File file = modelFile(job, hash);
+        ModelASTStages shared = CACHE.getIfPresent(file);
+        if (shared == null) {
+            if (!file.isFile()) {
+                return null;
+            }
+            try (InputStream in = new GZIPInputStream(new FileInputStream(file))) {
+                Object o = Run.XSTREAM2.fromXML(in);
+                if (!(o instanceof ModelASTStages)) {
+                    throw new IOException("Unexpected content in " + file);
+                }
+                shared = (ModelASTStages) o;
+            } catch (RuntimeException e) {
+                throw new IOException("Failed to read " + file, e);
+            }
+            CACHE.put(file, shared);
+        }
+        ModelASTStages stages = new ModelASTStages(null, uuid);
+        // The stages themselves are shared by every build with this model, so they mustn't be changed.
+        stages.setStages(Collections.unmodifiableList(shared.getStages()));
+        return stages;
+    }
+
+    /**
+     * The XML form the stages are stored in. The stages UUID differs from build to build, so a fixed one is written
+     * instead, and source locations have already been removed, so that otherwise identical stages give identical XML.
+     */
+    @Nonnull
+    private static byte[] toXml(@Nonnull ModelASTStages stages) throws IOException {
+        ModelASTStages copy = new ModelASTStages(null, STORED_UUID);
+        copy.setStages(stages.getStages());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Run.XSTREAM2.toXMLUTF8(copy, out);
+        return out.toByteArray();
+    }
+
+    /**
+     * The hash of the stored form of some stages, so that anything which ends up in the stored model is covered.
+     */
+    @Nonnull
+    static String hash(@Nonnull byte[] xml) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return Util.toHexString(digest.digest(xml));
+        } catch (NoSuchAlgorithmException e) {
+            throw new AssertionError("SHA-256 is always available", e);
+        }
+    }
+
+    /**
+     * Delete the given models of the job, other than those still used by any of its builds besides the deleted one.
+     */
+    static void prune(@Nonnull Job<?,?> job, @Nonnull Run<?,?> deleted, @Nonnull Collection<String> hashes) {
+        synchronized (lockFor(job)) {
+            Set<String> unused = new HashSet<>(hashes);
+            for (Run<?,?> b = job.getLastBuild(); b != null && !unused.isEmpty(); b = b.getPreviousBuild()) {
+                if (b != deleted) {
+                    ExecutionModelAction action = b.getAction(ExecutionModelAction.class);
+                    if (action != null) {
+                        unused.removeAll(action.getStoredHashes());
+                    }
+                }
+            }
+            for (String hash : unused) {
+                File file = modelFile(job, hash);
+                CACHE.invalidate(file);
+                try {
+                    Files.deleteIfExists(file.toPath());
+                } catch (IOException e) {
+                    LOGGER.log(Level.WARNING, "Failed to delete unused pipeline model " + file, e);
+                }
+            }
+        }
+    }
+
+    @Nonnull
+    private static Object lockFor(@Nonnull Job<?,?> job) {
+        synchronized (LOCKS) {
+            Object lock = LOCKS.get(job);
+            if (lock == null) {
+                lock = new Object();
+                LOCKS.put(job, lock);
+            }
+            return lock;
+        }
+    }
+
+    /**
+     * Prunes the models used by deleted builds.
+     */
+    @Extension
+    public static class Pruner extends RunListener<Run<?,?>> {
+        @Override
+        public void onDeleted(Run<?,?> r) {
+            ExecutionModelAction action = r.getAction(ExecutionModelAction.class);
+            if (action != null && !action.getStoredHashes().isEmpty()) {
+                prune(r.getParent(), r, action.getStoredHashes());
+            }
+        }
+    }
+
+    @Nonnull
+    private static File modelFile(@Nonnull Job<?,?> job, @Nonnull String hash) {
+        return new File(new File(job.getRootDir(), STORE_DIR), hash + ".xml.gz");
+    }
+}
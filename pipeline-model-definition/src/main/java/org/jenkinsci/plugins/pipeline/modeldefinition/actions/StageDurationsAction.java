@@ -0,0 +1,148 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2018, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.jenkinsci.plugins.pipeline.modeldefinition.actions;
+
+import hudson.Extension;
+import hudson.ExtensionList;
+import hudson.model.InvisibleAction;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import hudson.model.listeners.RunListener;
+import org.jenkinsci.plugins.workflow.job.WorkflowJob;
+import org.jenkinsci.plugins.workflow.job.WorkflowRun;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Records how long each parallel stage took in a run, so that later runs can start the longest ones first.
+ */
+@Restricted(NoExternalUse.class)
+public class StageDurationsAction extends InvisibleAction {
+    private final Map<String, Long> durations = new HashMap<>();
+
+    public synchronized Map<String, Long> getDurations() {
+        return Collections.unmodifiableMap(new HashMap<>(durations));
+    }
+
+    public synchronized void record(@Nonnull String stageName, long millis) {
+        durations.put(stageName, millis);
+    }
+
+    /**
+     * Record the duration of a stage on the given run. The run is saved along with its other actions when it
+     * completes.
+     */
+    public static void record(@CheckForNull Run<?, ?> run, @Nonnull String stageName, long millis) {
+        if (run == null) {
+            return;
+        }
+        StageDurationsAction action;
+        synchronized (run) {
+            action = run.getAction(StageDurationsAction.class);
+            if (action == null) {
+                action = new StageDurationsAction();
+                run.addAction(action);
+            }
+        }
+        action.record(stageName, millis);
+    }
+
+    /**
+     * Get the stage durations from the most recent completed build of the same job which recorded any, as known to
+     * the {@link Index}.
+     *
+     * @return A map of stage name to duration in milliseconds, empty if no recent build recorded durations.
+     */
+    @Nonnull
+    public static Map<String, Long> previousDurations(@CheckForNull Run<?, ?> run) {
+        if (!(run instanceof WorkflowRun)) {
+            return Collections.emptyMap();
+        }
+        return Index.get().getPreviousDurations((WorkflowRun) run);
+    }
+
+    /**
+     * Keeps the latest recorded stage durations per job, so that they don't need to be looked up by loading earlier
+     * builds from disk. The durations for a job are seeded the first time they're asked for, from the immediately
+     * previous completed build only, and then replaced as builds of that job which recorded durations complete.
+     */
+    @Extension
+    @Restricted(NoExternalUse.class)
+    public static class Index extends RunListener<WorkflowRun> {
+        private final transient Map<WorkflowJob, Map<String, Long>> latest = new WeakHashMap<>();
+
+        public static Index get() {
+            return ExtensionList.lookup(Index.class).get(0);
+        }
+
+        @Nonnull
+        Map<String, Long> getPreviousDurations(@Nonnull WorkflowRun r) {
+            WorkflowJob job = r.getParent();
+            synchronized (this) {
+                Map<String, Long> durations = latest.get(job);
+                if (durations != null) {
+                    return durations;
+                }
+            }
+
+            Map<String, Long> durations = Collections.emptyMap();
+            WorkflowRun prev = r.getPreviousCompletedBuild();
+            if (prev != null) {
+                StageDurationsAction action = prev.getAction(StageDurationsAction.class);
+                if (action != null) {
+                    durations = action.getDurations();
+                }
+            }
+
+            synchronized (this) {
+                // A build which completed meanwhile has more recent durations.
+                if (!latest.containsKey(job)) {
+                    latest.put(job, durations);
+                }
+                return latest.get(job);
+            }
+        }
+
+        @Override
+        public void onCompleted(WorkflowRun r, @Nonnull TaskListener listener) {
+            StageDurationsAction action = r.getAction(StageDurationsAction.class);
+            if (action != null) {
+                Map<String, Long> durations = action.getDurations();
+                if (!durations.isEmpty()) {
+                    synchronized (this) {
+                        latest.put(r.getParent(), durations);
+                    }
+                }
+            }
+        }
+    }
+}
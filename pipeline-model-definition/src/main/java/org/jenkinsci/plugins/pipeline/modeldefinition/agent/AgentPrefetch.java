@@ -0,0 +1,367 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2018, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.jenkinsci.plugins.pipeline.modeldefinition.agent;
+
+import hudson.Extension;
+import hudson.model.Computer;
+import hudson.model.Executor;
+import hudson.model.Item;
+import hudson.model.Label;
+import hudson.model.Node;
+import hudson.model.Queue;
+import hudson.model.ResourceList;
+import hudson.model.Run;
+import hudson.model.queue.AbstractQueueTask;
+import hudson.model.queue.QueueListener;
+import hudson.model.queue.SubTask;
+import jenkins.model.Jenkins;
+import org.apache.commons.lang.StringUtils;
+import org.jenkinsci.plugins.pipeline.modeldefinition.agent.impl.Any;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Requests agents for upcoming stages ahead of time, so that clouds can start provisioning them while earlier stages
+ * are still running. This is done by putting a placeholder task for the stage's label in the queue. Once it gets an
+ * executor, the placeholder holds it until its stage starts, so the node isn't taken by other work or terminated as
+ * idle in the meantime, and then finishes, freeing the executor just before the stage's own node step asks for one.
+ * A placeholder still waiting in the queue when its stage starts is cancelled, whether the stage then runs or is
+ * skipped. Note that a single-use agent is used up by the placeholder, so the stage will still need another one.
+ *
+ * A placeholder gives up its executor early if other work from the same job is waiting for an executor on that node,
+ * so it can never starve the build it's fetching an agent for, and in any case after holding it for
+ * {@link #MAX_HOLD_MINUTES}.
+ */
+@Restricted(NoExternalUse.class)
+public class AgentPrefetch {
+    private static final Logger LOGGER = Logger.getLogger(AgentPrefetch.class.getName());
+
+    /**
+     * How long a placeholder may hold on to its executor.
+     */
+    private static final int MAX_HOLD_MINUTES = Integer.getInteger(AgentPrefetch.class.getName() + ".maxHoldMinutes", 10);
+
+    /**
+     * Placeholders which are still queued or holding an executor, by run and stage name.
+     */
+    private static final Map<Run<?,?>, Map<String, PrefetchTask>> PENDING = new WeakHashMap<>();
+
+    /**
+     * Get the label expression an agent will ask for.
+     *
+     * @return The label expression, an empty string for any node, or null if the agent doesn't get a node of its own
+     * or its label isn't known in advance.
+     */
+    @CheckForNull
+    public static String labelFor(@CheckForNull DeclarativeAgent<?> agent) {
+        if (agent instanceof org.jenkinsci.plugins.pipeline.modeldefinition.agent.impl.Label) {
+            return StringUtils.defaultString(((org.jenkinsci.plugins.pipeline.modeldefinition.agent.impl.Label) agent).getLabel());
+        } else if (agent instanceof AbstractDockerAgent) {
+            AbstractDockerAgent<?> docker = (AbstractDockerAgent<?>) agent;
+            if (docker.getReuseNode()) {
+                return null;
+            }
+            return StringUtils.defaultString(DeclarativeDockerUtils.getLabel(docker.getLabel()));
+        } else if (agent instanceof Any) {
+            return "";
+        }
+        return null;
+    }
+
+    /**
+     * Put a placeholder in the queue for the given stage's agent, unless there already is one.
+     *
+     * @return true if a placeholder was added.
+     */
+    public static boolean prefetch(@CheckForNull Run<?,?> run, @Nonnull String stageName,
+                                   @CheckForNull DeclarativeAgent<?> agent) {
+        String label = labelFor(agent);
+        if (run == null || label == null) {
+            return false;
+        }
+        synchronized (PENDING) {
+            Map<String, PrefetchTask> forRun = PENDING.get(run);
+            if (forRun == null) {
+                forRun = new HashMap<>();
+                PENDING.put(run, forRun);
+            }
+            if (forRun.containsKey(stageName)) {
+                return false;
+            }
+            PrefetchTask task = new PrefetchTask(run, stageName, label);
+            if (Queue.getInstance().schedule2(task, 0).getItem() == null) {
+                return false;
+            }
+            forRun.put(stageName, task);
+            return true;
+        }
+    }
+
+    /**
+     * Release the placeholder for the given stage - cancel it if it is still waiting in the queue, or let it finish
+     * and free its executor if it has one.
+     */
+    public static void release(@CheckForNull Run<?,?> run, @Nonnull String stageName) {
+        PrefetchTask task;
+        synchronized (PENDING) {
+            Map<String, PrefetchTask> forRun = PENDING.get(run);
+            task = forRun != null ? forRun.remove(stageName) : null;
+        }
+        release(task);
+    }
+
+    /**
+     * Release all of the run's placeholders.
+     */
+    public static void releaseAll(@CheckForNull Run<?,?> run) {
+        Map<String, PrefetchTask> forRun;
+        synchronized (PENDING) {
+            forRun = PENDING.remove(run);
+        }
+        if (forRun != null) {
+            for (PrefetchTask task : forRun.values()) {
+                release(task);
+            }
+        }
+    }
+
+    private static void release(@CheckForNull PrefetchTask task) {
+        if (task != null) {
+            // Let the executable finish if it's already running, and make sure it finishes at once if it starts later.
+            task.released.countDown();
+            try {
+                Queue.getInstance().cancel(task);
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.FINE, "Could not cancel " + task, e);
+            }
+        }
+    }
+
+    /**
+     * Whether a queued item is work from the placeholder's job which could run on the node the placeholder holds.
+     */
+    private static boolean needsHeldNode(@Nonnull PrefetchTask task, @Nonnull Queue.Item item) {
+        Node node = task.holding;
+        if (node == null || item.task instanceof PrefetchTask || item.task instanceof Queue.FlyweightTask) {
+            return false;
+        }
+        Queue.Task owner = item.task.getOwnerTask();
+        if (!(owner instanceof Item) || !((Item) owner).getFullName().equals(task.jobName)) {
+            return false;
+        }
+        Label assigned = item.getAssignedLabel();
+        return assigned == null || assigned.contains(node);
+    }
+
+    /**
+     * Releases any placeholder holding an executor which other work from the same job is now waiting for.
+     */
+    @Extension
+    public static class YieldListener extends QueueListener {
+        @Override
+        public void onEnterBuildable(Queue.BuildableItem item) {
+            List<PrefetchTask> tasks = new ArrayList<>();
+            synchronized (PENDING) {
+                for (Map<String, PrefetchTask> forRun : PENDING.values()) {
+                    tasks.addAll(forRun.values());
+                }
+            }
+            for (PrefetchTask task : tasks) {
+                if (needsHeldNode(task, item)) {
+                    LOGGER.log(Level.FINE, "{0} giving up its executor for {1}", new Object[] {task, item});
+                    task.released.countDown();
+                }
+            }
+        }
+    }
+
+    /**
+     * The placeholder task. It isn't persisted, so it won't survive a restart, but neither would the stage's wait.
+     */
+    static final class PrefetchTask extends AbstractQueueTask implements Queue.TransientTask {
+        private final String runId;
+        private final String jobName;
+        private final String displayName;
+        private final String label;
+        private final CountDownLatch released = new CountDownLatch(1);
+        private volatile Node holding;
+
+        PrefetchTask(@Nonnull Run<?,?> run, @Nonnull String stageName, @Nonnull String label) {
+            this.runId = run.getExternalizableId();
+            this.jobName = run.getParent().getFullName();
+            this.displayName = run.getFullDisplayName() + " (agent for stage '" + stageName + "')";
+            this.label = label;
+        }
+
+        @CheckForNull
+        private Run<?,?> getRun() {
+            return Run.fromExternalizableId(runId);
+        }
+
+        @Override
+        public Label getAssignedLabel() {
+            return Jenkins.getActiveInstance().getLabel(label);
+        }
+
+        @Override
+        public boolean isBuildBlocked() {
+            return false;
+        }
+
+        @Override
+        public String getWhyBlocked() {
+            return null;
+        }
+
+        @Override
+        public String getName() {
+            return displayName;
+        }
+
+        @Override
+        public String getFullDisplayName() {
+            return displayName;
+        }
+
+        @Override
+        public String getDisplayName() {
+            return displayName;
+        }
+
+        @Override
+        public void checkAbortPermission() {
+            Run<?,?> r = getRun();
+            if (r != null) {
+                r.getParent().checkPermission(Item.CANCEL);
+            } else {
+                Jenkins.getActiveInstance().checkPermission(Jenkins.ADMINISTER);
+            }
+        }
+
+        @Override
+        public boolean hasAbortPermission() {
+            Run<?,?> r = getRun();
+            return r != null ? r.getParent().hasPermission(Item.CANCEL) : Jenkins.getActiveInstance().hasPermission(Jenkins.ADMINISTER);
+        }
+
+        @Override
+        public String getUrl() {
+            Run<?,?> r = getRun();
+            return r != null ? r.getUrl() : "";
+        }
+
+        @Override
+        public Node getLastBuiltOn() {
+            return null;
+        }
+
+        @Override
+        public long getEstimatedDuration() {
+            return -1;
+        }
+
+        @Override
+        public ResourceList getResourceList() {
+            return new ResourceList();
+        }
+
+        @Override
+        public boolean isConcurrentBuild() {
+            return true;
+        }
+
+        @Override
+        public Queue.Executable createExecutable() {
+            return new PrefetchExecutable(this);
+        }
+
+        @Override
+        public String toString() {
+            return "AgentPrefetch.PrefetchTask[" + displayName + "]";
+        }
+    }
+
+    /**
+     * Holds on to its executor until the placeholder is released, i.e., its stage has started or the build is over,
+     * until other work from the same job needs the executor, or until it has held it for {@link #MAX_HOLD_MINUTES}.
+     */
+    static final class PrefetchExecutable implements Queue.Executable {
+        private final PrefetchTask parent;
+
+        PrefetchExecutable(PrefetchTask parent) {
+            this.parent = parent;
+        }
+
+        @Override
+        public SubTask getParent() {
+            return parent;
+        }
+
+        @Override
+        public long getEstimatedDuration() {
+            return -1;
+        }
+
+        @Override
+        public void run() {
+            Executor executor = Executor.currentExecutor();
+            Computer computer = executor != null ? executor.getOwner() : null;
+            parent.holding = computer != null ? computer.getNode() : null;
+            try {
+                // Work from the same job may have been waiting for this node before the placeholder got it.
+                for (Queue.BuildableItem item : Queue.getInstance().getBuildableItems()) {
+                    if (needsHeldNode(parent, item)) {
+                        return;
+                    }
+                }
+                if (!parent.released.await(MAX_HOLD_MINUTES, TimeUnit.MINUTES)) {
+                    LOGGER.log(Level.FINE, "{0} held its executor for {1} minutes, giving it up",
+                            new Object[] {this, MAX_HOLD_MINUTES});
+                }
+            } catch (InterruptedException e) {
+                // Aborted - give up the executor.
+            } finally {
+                parent.holding = null;
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "AgentPrefetch.PrefetchExecutable[" + parent.displayName + "]";
+        }
+    }
+}
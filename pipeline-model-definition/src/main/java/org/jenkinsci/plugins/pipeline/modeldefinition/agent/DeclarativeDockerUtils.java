@@ -32,8 +32,11 @@ import org.jenkinsci.plugins.workflow.cps.CpsFlowExecution;
 import org.jenkinsci.plugins.workflow.cps.CpsThread;
 import org.jenkinsci.plugins.workflow.flow.FlowExecutionOwner;
 
+import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 import java.io.IOException;
+import java.util.Map;
+import java.util.WeakHashMap;
 
 /**
  * @see org.jenkinsci.plugins.pipeline.modeldefinition.config.DockerLabelProvider
@@ -58,6 +61,28 @@ public class DeclarativeDockerUtils {
         }
     }
 
+    /**
+     * Properties resolved from the {@link DockerPropertiesProvider}s, once per run, since every docker agent in every
+     * stage asks for them.
+     */
+    private static final Map<Run<?,?>, ResolvedProperties> RESOLVED = new WeakHashMap<>();
+
+    @CheckForNull
+    private static ResolvedProperties resolvedProperties() {
+        Run<?,?> r = currentRun();
+        if (r == null) {
+            return null;
+        }
+        synchronized (RESOLVED) {
+            ResolvedProperties p = RESOLVED.get(r);
+            if (p == null) {
+                p = new ResolvedProperties(r);
+                RESOLVED.put(r, p);
+            }
+            return p;
+        }
+    }
+
     @Whitelisted
     public static String getLabel() {
         return getLabel(null);
@@ -68,15 +93,9 @@ public class DeclarativeDockerUtils {
         if (!StringUtils.isBlank(override)) {
             return override;
         } else {
-            Run<?,?> r = currentRun();
-            for (DockerPropertiesProvider provider : DockerPropertiesProvider.all()) {
-                String label = provider.getLabel(r);
-                if (!StringUtils.isBlank(label)) {
-                    return label;
-                }
-            }
+            ResolvedProperties p = resolvedProperties();
+            return p != null ? p.label : ResolvedProperties.label(null);
         }
-        return null;
     }
 
     @Whitelisted
@@ -89,15 +108,9 @@ public class DeclarativeDockerUtils {
         if (!StringUtils.isBlank(override)) {
             return override;
         } else {
-            Run<?,?> r = currentRun();
-            for (DockerPropertiesProvider provider : DockerPropertiesProvider.all()) {
-                String url = provider.getRegistryUrl(r);
-                if (!StringUtils.isBlank(url)) {
-                    return url;
-                }
-            }
+            ResolvedProperties p = resolvedProperties();
+            return p != null ? p.registryUrl : ResolvedProperties.registryUrl(null);
         }
-        return null;
     }
 
     @Whitelisted
@@ -110,7 +123,43 @@ public class DeclarativeDockerUtils {
         if (!StringUtils.isBlank(override)) {
             return override;
         } else {
-            Run<?,?> r = currentRun();
+            ResolvedProperties p = resolvedProperties();
+            return p != null ? p.registryCredentialsId : ResolvedProperties.registryCredentialsId(null);
+        }
+    }
+
+    private static final class ResolvedProperties {
+        private final String label;
+        private final String registryUrl;
+        private final String registryCredentialsId;
+
+        ResolvedProperties(@Nullable Run<?,?> r) {
+            this.label = label(r);
+            this.registryUrl = registryUrl(r);
+            this.registryCredentialsId = registryCredentialsId(r);
+        }
+
+        static String label(@Nullable Run<?,?> r) {
+            for (DockerPropertiesProvider provider : DockerPropertiesProvider.all()) {
+                String label = provider.getLabel(r);
+                if (!StringUtils.isBlank(label)) {
+                    return label;
+                }
+            }
+            return null;
+        }
+
+        static String registryUrl(@Nullable Run<?,?> r) {
+            for (DockerPropertiesProvider provider : DockerPropertiesProvider.all()) {
+                String url = provider.getRegistryUrl(r);
+                if (!StringUtils.isBlank(url)) {
+                    return url;
+                }
+            }
+            return null;
+        }
+
+        static String registryCredentialsId(@Nullable Run<?,?> r) {
             for (DockerPropertiesProvider provider : DockerPropertiesProvider.all()) {
                 String id = provider.getRegistryCredentialsId(r);
                 if (!StringUtils.isBlank(id)) {
@@ -39,6 +39,7 @@ public class DockerPipelineFromDockerfile extends AbstractDockerAgent<DockerPipe
     private String filename;
     private String dir;
     private String additionalBuildArgs;
+    private boolean reuseImage;
 
     @DataBoundConstructor
     public DockerPipelineFromDockerfile() {
@@ -71,6 +72,19 @@ public class DockerPipelineFromDockerfile extends AbstractDockerAgent<DockerPipe
         this.additionalBuildArgs = additionalBuildArgs;
     }
 
+    public boolean isReuseImage() {
+        return reuseImage;
+    }
+
+    /**
+     * If true, the image is tagged with a hash of the Dockerfile, additional build arguments and build context, and
+     * an image already on the node with that tag is used rather than building it again.
+     */
+    @DataBoundSetter
+    public void setReuseImage(boolean reuseImage) {
+        this.reuseImage = reuseImage;
+    }
+
     @Nonnull
     public String getActualDir() {
         if (!StringUtils.isEmpty(dir)) {
@@ -29,10 +29,13 @@ import com.cloudbees.hudson.plugins.folder.AbstractFolder;
 import com.cloudbees.hudson.plugins.folder.AbstractFolderProperty;
 import com.cloudbees.hudson.plugins.folder.AbstractFolderPropertyDescriptor;
 import hudson.Extension;
+import hudson.XmlFile;
 import hudson.model.Item;
 import hudson.model.ItemGroup;
-import hudson.model.Job;
 import hudson.model.Run;
+import hudson.model.Saveable;
+import hudson.model.listeners.ItemListener;
+import hudson.model.listeners.SaveableListener;
 import org.apache.commons.lang.StringUtils;
 import org.jenkinsci.Symbol;
 import org.jenkinsci.plugins.docker.commons.credentials.DockerRegistryEndpoint;
@@ -40,8 +43,11 @@ import org.jenkinsci.plugins.pipeline.modeldefinition.Messages;
 import org.kohsuke.stapler.DataBoundConstructor;
 import org.kohsuke.stapler.DataBoundSetter;
 
+import javax.annotation.CheckForNull;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.util.Map;
+import java.util.WeakHashMap;
 
 /**
  * Provides folder level configuration.
@@ -97,88 +103,116 @@ public class FolderConfig extends AbstractFolderProperty<AbstractFolder<?>> {
     @Extension(ordinal = 10000) //First to be asked
     public static class FolderDockerPropertiesProvider extends DockerPropertiesProvider {
 
-        @Override
-        public String getLabel(@Nullable Run run) {
-            if (run != null) {
-                Job job = run.getParent();
-                ItemGroup parent = job.getParent();
-                while (parent != null) {
-
-                    if (parent instanceof AbstractFolder) {
-                        AbstractFolder folder = (AbstractFolder) parent;
-                        FolderConfig config = (FolderConfig) folder.getProperties().get(FolderConfig.class);
-                        if (config != null) {
-                            String label = config.getDockerLabel();
-                            if (!StringUtils.isBlank(label)) {
-                                return label;
-                            }
-                        }
-                    }
+        /**
+         * Properties already resolved through the folder ancestry, keyed by the folder a job is directly in. Cleared
+         * whenever a folder is saved or any item is moved or deleted.
+         */
+        private static final Map<ItemGroup, ResolvedProperties> RESOLVED = new WeakHashMap<>();
 
-                    if (parent instanceof Item) {
-                        parent = ((Item) parent).getParent();
-                    } else {
-                        parent = null;
-                    }
-                }
+        static void invalidate() {
+            synchronized (RESOLVED) {
+                RESOLVED.clear();
             }
-            return null;
+        }
+
+        @Override
+        public String getLabel(@Nullable Run run) {
+            ResolvedProperties p = resolve(run);
+            return p != null ? p.label : null;
         }
 
         @Override
         public String getRegistryUrl(@Nullable Run run) {
-            if (run != null) {
-                Job job = run.getParent();
-                ItemGroup parent = job.getParent();
-                while (parent != null) {
-
-                    if (parent instanceof AbstractFolder) {
-                        AbstractFolder folder = (AbstractFolder) parent;
-                        FolderConfig config = (FolderConfig) folder.getProperties().get(FolderConfig.class);
-                        if (config != null) {
-                            DockerRegistryEndpoint registry = config.getRegistry();
-                            if (registry != null && !StringUtils.isBlank(registry.getUrl())) {
-                                return registry.getUrl();
-                            }
-                        }
-                    }
+            ResolvedProperties p = resolve(run);
+            return p != null ? p.registryUrl : null;
+        }
 
-                    if (parent instanceof Item) {
-                        parent = ((Item) parent).getParent();
-                    } else {
-                        parent = null;
-                    }
+        @Override
+        public String getRegistryCredentialsId(@Nullable Run run) {
+            ResolvedProperties p = resolve(run);
+            return p != null ? p.registryCredentialsId : null;
+        }
+
+        @CheckForNull
+        private static ResolvedProperties resolve(@Nullable Run run) {
+            if (run == null) {
+                return null;
+            }
+            ItemGroup start = run.getParent().getParent();
+            if (start == null) {
+                return null;
+            }
+            synchronized (RESOLVED) {
+                ResolvedProperties p = RESOLVED.get(start);
+                if (p == null) {
+                    p = new ResolvedProperties(start);
+                    RESOLVED.put(start, p);
                 }
+                return p;
             }
-            return null;
         }
+    }
 
-        @Override
-        public String getRegistryCredentialsId(@Nullable Run run) {
-            if (run != null) {
-                Job job = run.getParent();
-                ItemGroup parent = job.getParent();
-                while (parent != null) {
-
-                    if (parent instanceof AbstractFolder) {
-                        AbstractFolder folder = (AbstractFolder) parent;
-                        FolderConfig config = (FolderConfig) folder.getProperties().get(FolderConfig.class);
-                        if (config != null) {
-                            DockerRegistryEndpoint registry = config.getRegistry();
-                            if (registry != null && !StringUtils.isBlank(registry.getCredentialsId())) {
-                                return registry.getCredentialsId();
+    /**
+     * The closest non-blank value of each property, walking up from a folder through its ancestors.
+     */
+    private static final class ResolvedProperties {
+        private String label;
+        private String registryUrl;
+        private String registryCredentialsId;
+
+        ResolvedProperties(@Nonnull ItemGroup start) {
+            ItemGroup parent = start;
+            while (parent != null) {
+
+                if (parent instanceof AbstractFolder) {
+                    AbstractFolder folder = (AbstractFolder) parent;
+                    FolderConfig config = (FolderConfig) folder.getProperties().get(FolderConfig.class);
+                    if (config != null) {
+                        if (label == null && !StringUtils.isBlank(config.getDockerLabel())) {
+                            label = config.getDockerLabel();
+                        }
+                        DockerRegistryEndpoint registry = config.getRegistry();
+                        if (registry != null) {
+                            if (registryUrl == null && !StringUtils.isBlank(registry.getUrl())) {
+                                registryUrl = registry.getUrl();
+                            }
+                            if (registryCredentialsId == null && !StringUtils.isBlank(registry.getCredentialsId())) {
+                                registryCredentialsId = registry.getCredentialsId();
                             }
                         }
                     }
+                }
 
-                    if (parent instanceof Item) {
-                        parent = ((Item) parent).getParent();
-                    } else {
-                        parent = null;
-                    }
+                if (parent instanceof Item) {
+                    parent = ((Item) parent).getParent();
+                } else {
+                    parent = null;
                 }
             }
-            return null;
+        }
+    }
+
+    @Extension
+    public static class FolderSaveListener extends SaveableListener {
+        @Override
+        public void onChange(Saveable o, XmlFile file) {
+            if (o instanceof AbstractFolder) {
+                FolderDockerPropertiesProvider.invalidate();
+            }
+        }
+    }
+
+    @Extension
+    public static class ItemMoveListener extends ItemListener {
+        @Override
+        public void onLocationChanged(Item item, String oldFullName, String newFullName) {
+            FolderDockerPropertiesProvider.invalidate();
+        }
+
+        @Override
+        public void onDeleted(Item item) {
+            FolderDockerPropertiesProvider.invalidate();
         }
     }
 }
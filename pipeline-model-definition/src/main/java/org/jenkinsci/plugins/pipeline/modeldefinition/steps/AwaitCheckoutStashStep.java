@@ -0,0 +1,129 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2018, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.pipeline.modeldefinition.steps;
+
+import com.google.inject.Inject;
+import hudson.Extension;
+import hudson.model.Run;
+import org.jenkinsci.plugins.pipeline.modeldefinition.agent.CheckoutStashAction;
+import org.jenkinsci.plugins.workflow.steps.AbstractStepDescriptorImpl;
+import org.jenkinsci.plugins.workflow.steps.AbstractStepExecutionImpl;
+import org.jenkinsci.plugins.workflow.steps.AbstractStepImpl;
+import org.jenkinsci.plugins.workflow.steps.StepContextParameter;
+import org.kohsuke.stapler.DataBoundConstructor;
+
+import java.io.Serializable;
+
+/**
+ * An internal step used by the {@code checkoutOnce} option to wait for another agent's checkout of the build to be
+ * stashed, without polling. Returns one of {@link CheckoutStashAction#LEAD}, {@link CheckoutStashAction#READY} or
+ * {@link CheckoutStashAction#FAILED}.
+ *
+ * If the controller restarts while waiting, the checkout in progress is abandoned, so the step asks again on resume
+ * and this agent may end up checking out itself.
+ */
+public final class AwaitCheckoutStashStep extends AbstractStepImpl implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private String subdirectory;
+
+    @DataBoundConstructor
+    public AwaitCheckoutStashStep(String subdirectory) {
+        this.subdirectory = subdirectory;
+    }
+
+    public String getSubdirectory() {
+        return subdirectory;
+    }
+
+    @Extension
+    public static final class DescriptorImpl extends AbstractStepDescriptorImpl {
+
+        public DescriptorImpl() {
+            super(AwaitCheckoutStashStepExecution.class);
+        }
+
+        @Override
+        public boolean isAdvanced() {
+            return true;
+        }
+
+        @Override public String getFunctionName() {
+            return "awaitCheckoutStash";
+        }
+
+        @Override public String getDisplayName() {
+            return "Waits for another agent's checkout of the build to be stashed.";
+        }
+
+        @Override public boolean takesImplicitBlockArgument() {
+            return false;
+        }
+    }
+
+    public static final class AwaitCheckoutStashStepExecution extends AbstractStepExecutionImpl {
+        @Inject
+        private transient AwaitCheckoutStashStep step;
+
+        @StepContextParameter transient Run<?, ?> run;
+
+        private String subdirectory;
+
+        @Override
+        public boolean start() throws Exception {
+            subdirectory = step.getSubdirectory();
+            return claim(run);
+        }
+
+        @Override
+        public void onResume() {
+            try {
+                claim(getContext().get(Run.class));
+            } catch (Exception e) {
+                getContext().onFailure(e);
+            }
+        }
+
+        @Override
+        public void stop(Throwable cause) throws Exception {
+            Run<?, ?> r = getContext().get(Run.class);
+            if (r != null) {
+                CheckoutStashAction.stopAwaiting(r, subdirectory, getContext());
+            }
+            getContext().onFailure(cause);
+        }
+
+        private boolean claim(Run<?, ?> r) {
+            String role = CheckoutStashAction.claimOrAwait(r, subdirectory, getContext());
+            if (role != null) {
+                getContext().onSuccess(role);
+                return true;
+            }
+            return false;
+        }
+
+        private static final long serialVersionUID = 1L;
+    }
+}
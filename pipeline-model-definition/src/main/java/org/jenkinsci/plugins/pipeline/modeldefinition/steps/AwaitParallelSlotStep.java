@@ -0,0 +1,202 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2018, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.pipeline.modeldefinition.steps;
+
+import com.google.inject.Inject;
+import hudson.Extension;
+import org.jenkinsci.plugins.workflow.steps.AbstractStepDescriptorImpl;
+import org.jenkinsci.plugins.workflow.steps.AbstractStepExecutionImpl;
+import org.jenkinsci.plugins.workflow.steps.AbstractStepImpl;
+import org.jenkinsci.plugins.workflow.steps.StepContext;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+import org.kohsuke.stapler.DataBoundConstructor;
+
+import javax.annotation.Nonnull;
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An internal step used by the {@code maxConcurrency} option, in which a parallel branch waits until it is told a slot
+ * may have been freed for it, rather than polling. The slots themselves are counted by the interpreter, which calls
+ * {@link #signal(String, int)} for the branch which should try next. A signal sent before that branch starts waiting
+ * is kept, so the step then returns at once.
+ *
+ * Waking up doesn't guarantee a slot, so callers must check again and wait again if needed. In particular, the step
+ * returns at once when resumed after a restart, since any signal sent before the restart is lost.
+ */
+public final class AwaitParallelSlotStep extends AbstractStepImpl implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Signals not waited for yet, by slots ID.
+     */
+    private static final Map<String, Set<Integer>> SIGNALED = new HashMap<>();
+
+    /**
+     * Waiting branches, by slots ID and branch index.
+     */
+    private static final Map<String, Map<Integer, StepContext>> WAITING = new HashMap<>();
+
+    private String id;
+    private int index;
+
+    @DataBoundConstructor
+    public AwaitParallelSlotStep(String id, int index) {
+        this.id = id;
+        this.index = index;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * Wake up the branch with the given index, or let it go on at once if it isn't waiting yet.
+     *
+     * @param id The ID of the parallel's slots.
+     * @param index The index of the branch.
+     */
+    @Restricted(NoExternalUse.class)
+    public static void signal(@Nonnull String id, int index) {
+        StepContext context;
+        synchronized (WAITING) {
+            Map<Integer, StepContext> forId = WAITING.get(id);
+            context = forId != null ? forId.remove(index) : null;
+            if (forId != null && forId.isEmpty()) {
+                WAITING.remove(id);
+            }
+            if (context == null) {
+                Set<Integer> signaled = SIGNALED.get(id);
+                if (signaled == null) {
+                    signaled = new HashSet<>();
+                    SIGNALED.put(id, signaled);
+                }
+                signaled.add(index);
+            }
+        }
+        if (context != null) {
+            context.onSuccess(null);
+        }
+    }
+
+    /**
+     * Forget any signal for the branch with the given index, once it has its slot.
+     *
+     * @param id The ID of the parallel's slots.
+     * @param index The index of the branch.
+     */
+    @Restricted(NoExternalUse.class)
+    public static void clear(@Nonnull String id, int index) {
+        synchronized (WAITING) {
+            Set<Integer> signaled = SIGNALED.get(id);
+            if (signaled != null && signaled.remove(index) && signaled.isEmpty()) {
+                SIGNALED.remove(id);
+            }
+        }
+    }
+
+    @Extension
+    public static final class DescriptorImpl extends AbstractStepDescriptorImpl {
+
+        public DescriptorImpl() {
+            super(AwaitParallelSlotStepExecution.class);
+        }
+
+        @Override
+        public boolean isAdvanced() {
+            return true;
+        }
+
+        @Override public String getFunctionName() {
+            return "awaitParallelSlot";
+        }
+
+        @Override public String getDisplayName() {
+            return "Waits until a parallel branch may be able to start under the maxConcurrency option.";
+        }
+
+        @Override public boolean takesImplicitBlockArgument() {
+            return false;
+        }
+    }
+
+    public static final class AwaitParallelSlotStepExecution extends AbstractStepExecutionImpl {
+        @Inject
+        private transient AwaitParallelSlotStep step;
+
+        private String id;
+        private int index;
+
+        @Override
+        public boolean start() throws Exception {
+            id = step.getId();
+            index = step.getIndex();
+            synchronized (WAITING) {
+                Set<Integer> signaled = SIGNALED.get(id);
+                if (signaled == null || !signaled.contains(index)) {
+                    Map<Integer, StepContext> forId = WAITING.get(id);
+                    if (forId == null) {
+                        forId = new HashMap<>();
+                        WAITING.put(id, forId);
+                    }
+                    forId.put(index, getContext());
+                    return false;
+                }
+            }
+            clear(id, index);
+            getContext().onSuccess(null);
+            return true;
+        }
+
+        @Override
+        public void onResume() {
+            getContext().onSuccess(null);
+        }
+
+        @Override
+        public void stop(Throwable cause) throws Exception {
+            synchronized (WAITING) {
+                Map<Integer, StepContext> forId = WAITING.get(id);
+                if (forId != null) {
+                    forId.remove(index);
+                    if (forId.isEmpty()) {
+                        WAITING.remove(id);
+                    }
+                }
+            }
+            getContext().onFailure(cause);
+        }
+
+        private static final long serialVersionUID = 1L;
+    }
+}
@@ -0,0 +1,255 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2018, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.jenkinsci.plugins.pipeline.modeldefinition.steps;
+
+import com.google.inject.Inject;
+import hudson.Extension;
+import hudson.FilePath;
+import hudson.remoting.VirtualChannel;
+import jenkins.MasterToSlaveFileCallable;
+import org.apache.commons.codec.binary.Hex;
+import org.apache.tools.ant.DirectoryScanner;
+import org.jenkinsci.plugins.workflow.steps.AbstractStepDescriptorImpl;
+import org.jenkinsci.plugins.workflow.steps.AbstractStepImpl;
+import org.jenkinsci.plugins.workflow.steps.AbstractSynchronousNonBlockingStepExecution;
+import org.jenkinsci.plugins.workflow.steps.Step;
+import org.jenkinsci.plugins.workflow.steps.StepContextParameter;
+import org.kohsuke.stapler.DataBoundConstructor;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * An internal step used to compute a tag for the image built from a Dockerfile, as a SHA-1 of the Dockerfile, the
+ * additional build arguments and the content of the build context. Two builds of the same Dockerfile with the same
+ * arguments and context get the same tag, so an image already present on the node can be reused.
+ *
+ * Entries excluded by the context's {@code .dockerignore} are left out, unless it contains exceptions ({@code !})
+ * which we don't attempt to interpret, in which case the whole context is hashed.
+ *
+ * Necessary to do this as a {@link Step} so as to have access to the workspace on the agent.
+ */
+public final class DockerfileImageHashStep extends AbstractStepImpl implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private String dockerfile;
+    private String dir;
+    private String additionalBuildArgs;
+
+    @DataBoundConstructor
+    public DockerfileImageHashStep(String dockerfile, String dir, String additionalBuildArgs) {
+        this.dockerfile = dockerfile;
+        this.dir = dir;
+        this.additionalBuildArgs = additionalBuildArgs;
+    }
+
+    public String getDockerfile() {
+        return dockerfile;
+    }
+
+    public String getDir() {
+        return dir;
+    }
+
+    public String getAdditionalBuildArgs() {
+        return additionalBuildArgs;
+    }
+
+    @Extension
+    public static final class DescriptorImpl extends AbstractStepDescriptorImpl {
+
+        public DescriptorImpl() {
+            super(DockerfileImageHashStepExecution.class);
+        }
+
+        @Override
+        public boolean isAdvanced() {
+            return true;
+        }
+
+        @Override public String getFunctionName() {
+            return "dockerfileImageHash";
+        }
+
+        @Override public String getDisplayName() {
+            return "Computes an image tag from a Dockerfile, its build arguments and its build context.";
+        }
+
+        @Override public boolean takesImplicitBlockArgument() {
+            return false;
+        }
+    }
+
+    public static final class DockerfileImageHashStepExecution extends AbstractSynchronousNonBlockingStepExecution<String> {
+        @Inject
+        private transient DockerfileImageHashStep step;
+
+        @StepContextParameter transient FilePath workspace;
+
+        @Override protected String run() throws Exception {
+            FilePath context = workspace.child(step.getDir() != null ? step.getDir() : ".");
+            return context.act(new ContextHasher(workspace.child(step.getDockerfile()).getRemote(),
+                    step.getAdditionalBuildArgs() != null ? step.getAdditionalBuildArgs() : ""));
+        }
+
+        private static final long serialVersionUID = 1L;
+    }
+
+    private static final class ContextHasher extends MasterToSlaveFileCallable<String> {
+        private static final long serialVersionUID = 1L;
+
+        private static final String DOCKERIGNORE = ".dockerignore";
+
+        private final String dockerfile;
+        private final String additionalBuildArgs;
+
+        ContextHasher(String dockerfile, String additionalBuildArgs) {
+            this.dockerfile = dockerfile;
+            this.additionalBuildArgs = additionalBuildArgs;
+        }
+
+        @Override
+        public String invoke(File contextDir, VirtualChannel channel) throws IOException, InterruptedException {
+            File df = new File(dockerfile);
+            if (!df.isFile()) {
+                throw new FileNotFoundException(dockerfile);
+            }
+            MessageDigest digest;
+            try {
+                digest = MessageDigest.getInstance("SHA-1");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IOException(e);
+            }
+            update(digest, "dockerfile");
+            updateWithContent(digest, df.toPath());
+            update(digest, "args");
+            update(digest, additionalBuildArgs);
+
+            DirectoryScanner scanner = new DirectoryScanner();
+            scanner.setBasedir(contextDir);
+            scanner.setFollowSymlinks(false);
+            File ignoreFile = new File(contextDir, DOCKERIGNORE);
+            if (ignoreFile.isFile()) {
+                scanner.setExcludes(excludesFor(new String(Files.readAllBytes(ignoreFile.toPath()), StandardCharsets.UTF_8)));
+            }
+            scanner.scan();
+
+            // Directories are hashed too, since empty ones still end up in the image, and so are symlinks, which
+            // the scanner doesn't follow.
+            List<String> entries = new ArrayList<>();
+            for (String d : scanner.getIncludedDirectories()) {
+                if (!d.isEmpty()) {
+                    entries.add(d.replace(File.separatorChar, '/') + "/");
+                }
+            }
+            for (String f : scanner.getIncludedFiles()) {
+                entries.add(f.replace(File.separatorChar, '/'));
+            }
+            Path base = contextDir.getAbsoluteFile().toPath();
+            for (String link : scanner.getNotFollowedSymlinks()) {
+                entries.add(base.relativize(new File(link).toPath()).toString().replace(File.separatorChar, '/'));
+            }
+            String[] sorted = entries.toArray(new String[0]);
+            Arrays.sort(sorted);
+
+            for (String entry : sorted) {
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+                update(digest, "entry");
+                update(digest, entry);
+                if (!entry.endsWith("/")) {
+                    Path p = base.resolve(entry);
+                    if (Files.isSymbolicLink(p)) {
+                        update(digest, "link");
+                        update(digest, Files.readSymbolicLink(p).toString());
+                    } else {
+                        update(digest, Files.isExecutable(p) ? "executable" : "file");
+                        updateWithContent(digest, p);
+                    }
+                }
+            }
+            return Hex.encodeHexString(digest.digest());
+        }
+
+        /**
+         * Translates {@code .dockerignore} lines into Ant excludes. A pattern also excludes everything below it, as it
+         * does for Docker.
+         */
+        private static String[] excludesFor(String dockerignore) {
+            List<String> excludes = new ArrayList<>();
+            for (String line : dockerignore.split("\r?\n")) {
+                String pattern = line.trim();
+                if (pattern.isEmpty() || pattern.startsWith("#")) {
+                    continue;
+                }
+                if (pattern.startsWith("!")) {
+                    // Re-inclusions can't be expressed as Ant excludes - hash the whole context instead.
+                    return new String[0];
+                }
+                while (pattern.startsWith("./") || pattern.startsWith("/")) {
+                    pattern = pattern.substring(pattern.indexOf('/') + 1);
+                }
+                while (pattern.endsWith("/")) {
+                    pattern = pattern.substring(0, pattern.length() - 1);
+                }
+                if (!pattern.isEmpty()) {
+                    excludes.add(pattern);
+                    excludes.add(pattern + "/**");
+                }
+            }
+            return excludes.toArray(new String[0]);
+        }
+
+        private static void update(MessageDigest digest, String s) {
+            digest.update(s.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+        }
+
+        private static void updateWithContent(MessageDigest digest, Path p) throws IOException {
+            update(digest, Long.toString(Files.size(p)));
+            byte[] buffer = new byte[8192];
+            try (InputStream in = Files.newInputStream(p)) {
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    digest.update(buffer, 0, read);
+                }
+            }
+            digest.update((byte) 0);
+        }
+    }
+}
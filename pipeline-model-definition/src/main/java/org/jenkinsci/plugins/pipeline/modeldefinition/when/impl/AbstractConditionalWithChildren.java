@@ -25,6 +25,8 @@
 package org.jenkinsci.plugins.pipeline.modeldefinition.when.impl;
 
 import org.jenkinsci.plugins.pipeline.modeldefinition.when.DeclarativeStageConditional;
+import org.jenkinsci.plugins.pipeline.modeldefinition.when.DeclarativeStageConditionalScript;
+import org.jenkinsci.plugins.pipeline.modeldefinition.when.PureStageConditional;
 
 import javax.annotation.Nonnull;
 import java.util.List;
@@ -32,7 +34,8 @@ import java.util.List;
 /**
  * Match all of a list of stage conditions
  */
-public abstract class AbstractConditionalWithChildren<C extends AbstractConditionalWithChildren<C>> extends DeclarativeStageConditional<C> {
+public abstract class AbstractConditionalWithChildren<C extends AbstractConditionalWithChildren<C>> extends DeclarativeStageConditional<C>
+        implements PureStageConditional {
     private final List<DeclarativeStageConditional<? extends DeclarativeStageConditional>> children;
 
     public AbstractConditionalWithChildren(List<DeclarativeStageConditional<? extends DeclarativeStageConditional>> children) {
@@ -44,4 +47,20 @@ public abstract class AbstractConditionalWithChildren<C extends AbstractConditio
     public List<DeclarativeStageConditional<? extends DeclarativeStageConditional>> getChildren() {
         return children;
     }
+
+    /**
+     * Pure only if all children are, so that nested conditions can be short-circuited without loading any scripts.
+     */
+    @Override
+    public boolean isPure() {
+        if (children == null) {
+            return false;
+        }
+        for (DeclarativeStageConditional<? extends DeclarativeStageConditional> child : children) {
+            if (!DeclarativeStageConditionalScript.isPure(child)) {
+                return false;
+            }
+        }
+        return true;
+    }
 }
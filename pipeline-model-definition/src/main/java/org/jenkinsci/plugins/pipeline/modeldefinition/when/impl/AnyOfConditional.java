@@ -24,6 +24,7 @@
 
 package org.jenkinsci.plugins.pipeline.modeldefinition.when.impl;
 
+import hudson.EnvVars;
 import hudson.Extension;
 import org.codehaus.groovy.ast.expr.Expression;
 import org.jenkinsci.Symbol;
@@ -31,6 +32,7 @@ import org.jenkinsci.plugins.pipeline.modeldefinition.ast.ModelASTWhenContent;
 import org.jenkinsci.plugins.pipeline.modeldefinition.parser.ASTParserUtils;
 import org.jenkinsci.plugins.pipeline.modeldefinition.when.DeclarativeStageConditional;
 import org.jenkinsci.plugins.pipeline.modeldefinition.when.DeclarativeStageConditionalDescriptor;
+import org.jenkinsci.plugins.pipeline.modeldefinition.when.PureStageConditional;
 import org.kohsuke.stapler.DataBoundConstructor;
 
 import javax.annotation.CheckForNull;
@@ -46,6 +48,16 @@ public class AnyOfConditional extends AbstractConditionalWithChildren<AnyOfCondi
         super(children);
     }
 
+    @Override
+    public boolean evaluatePure(@Nonnull EnvVars env) {
+        for (DeclarativeStageConditional<? extends DeclarativeStageConditional> child : getChildren()) {
+            if (((PureStageConditional) child).evaluatePure(env)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     @Extension
     @Symbol("anyOf")
     public static class DescriptorImpl extends DeclarativeStageConditionalDescriptor<AnyOfConditional> {
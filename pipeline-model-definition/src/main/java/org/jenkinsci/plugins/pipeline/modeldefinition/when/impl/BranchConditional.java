@@ -25,19 +25,20 @@
 
 package org.jenkinsci.plugins.pipeline.modeldefinition.when.impl;
 
+import hudson.EnvVars;
 import hudson.Extension;
-import org.apache.tools.ant.types.selectors.SelectorUtils;
 import org.codehaus.groovy.ast.expr.Expression;
 import org.jenkinsci.Symbol;
 import org.jenkinsci.plugins.pipeline.modeldefinition.ast.ModelASTWhenContent;
 import org.jenkinsci.plugins.pipeline.modeldefinition.parser.ASTParserUtils;
 import org.jenkinsci.plugins.pipeline.modeldefinition.when.DeclarativeStageConditional;
 import org.jenkinsci.plugins.pipeline.modeldefinition.when.DeclarativeStageConditionalDescriptor;
+import org.jenkinsci.plugins.pipeline.modeldefinition.when.PureStageConditional;
+import org.jenkinsci.plugins.pipeline.modeldefinition.when.utils.GlobMatcher;
 import org.kohsuke.stapler.DataBoundConstructor;
 
 import javax.annotation.CheckForNull;
 import javax.annotation.Nonnull;
-import java.io.File;
 
 import static org.apache.commons.lang.StringUtils.isEmpty;
 
@@ -45,7 +46,8 @@ import static org.apache.commons.lang.StringUtils.isEmpty;
  * Stage condition based on the current branch. i.e. the env var BRANCH_NAME.
  * As populated by {@link jenkins.branch.BranchNameContributor}
  */
-public class BranchConditional extends DeclarativeStageConditional<BranchConditional> {
+public class BranchConditional extends DeclarativeStageConditional<BranchConditional>
+        implements PureStageConditional {
     private final String compare;
 
     @DataBoundConstructor
@@ -63,12 +65,12 @@ public class BranchConditional extends DeclarativeStageConditional<BranchConditi
         } else if (isEmpty(actualBranch) || isEmpty(toCompare)) {
             return false;
         }
-        // Replace the Git directory separator character (always '/')
-        // with the platform specific directory separator before
-        // invoking Ant's platform specific path matching.
-        String safeCompare = toCompare.replace('/', File.separatorChar);
-        String safeName = actualBranch.replace('/', File.separatorChar);
-        return SelectorUtils.matchPath(safeCompare, safeName, false);
+        return GlobMatcher.forPattern(toCompare, false).matches(actualBranch);
+    }
+
+    @Override
+    public boolean evaluatePure(@Nonnull EnvVars env) {
+        return branchMatches(compare, env.get("BRANCH_NAME"));
     }
 
     @Extension
@@ -32,6 +32,7 @@ import org.jenkinsci.plugins.pipeline.modeldefinition.ast.ModelASTWhenContent;
 import org.jenkinsci.plugins.pipeline.modeldefinition.parser.ASTParserUtils;
 import org.jenkinsci.plugins.pipeline.modeldefinition.when.DeclarativeStageConditional;
 import org.jenkinsci.plugins.pipeline.modeldefinition.when.DeclarativeStageConditionalDescriptor;
+import org.jenkinsci.plugins.pipeline.modeldefinition.when.utils.PatternCache;
 import org.kohsuke.accmod.Restricted;
 import org.kohsuke.accmod.restrictions.NoExternalUse;
 import org.kohsuke.stapler.DataBoundConstructor;
@@ -54,8 +55,8 @@ public class ChangeLogConditional extends DeclarativeStageConditional<ChangeLogC
     @DataBoundConstructor
     public ChangeLogConditional(String pattern) {
         this.pattern = pattern;
-        this.asPattern = Pattern.compile(pattern);
-        this.multiLinePattern = Pattern.compile(expandForMultiLine(pattern),
+        this.asPattern = PatternCache.compile(pattern);
+        this.multiLinePattern = PatternCache.compile(expandForMultiLine(pattern),
                 Pattern.MULTILINE | Pattern.DOTALL);
     }
 
@@ -71,6 +72,39 @@ public class ChangeLogConditional extends DeclarativeStageConditional<ChangeLogC
         return multiLinePattern;
     }
 
+    /**
+     * Whether a commit message matches, i.e., either the title matches {@link #getAsPattern()} or the full message
+     * matches {@link #getMultiLinePattern()}.
+     *
+     * @param title The title of the commit message
+     * @param comment The full commit message
+     * @return true if it matches
+     */
+    public boolean messageMatches(@Nonnull String title, @Nonnull String comment) {
+        return messageMatches(asPattern, multiLinePattern, title, comment);
+    }
+
+    @Restricted(NoExternalUse.class)
+    public static boolean messageMatches(@Nonnull Pattern asPattern, @Nonnull Pattern multiLinePattern,
+                                         @Nonnull String title, @Nonnull String comment) {
+        if (title.equals(comment) && !hasLineTerminator(comment)) {
+            // On a single line, the multi line pattern matches whenever the plain pattern matches the whole line, so
+            // only one of them needs to run.
+            return multiLinePattern.matcher(comment).matches();
+        }
+        return asPattern.matcher(title).matches() || multiLinePattern.matcher(comment).matches();
+    }
+
+    private static boolean hasLineTerminator(@Nonnull String s) {
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029') {
+                return true;
+            }
+        }
+        return false;
+    }
+
     @Extension
     @Symbol("changelog")
     public static class DescriptorImpl extends DeclarativeStageConditionalDescriptor<ChangeLogConditional> {
@@ -40,17 +40,20 @@ import org.jenkinsci.plugins.pipeline.modeldefinition.ast.ModelASTWhenContent;
 import org.jenkinsci.plugins.pipeline.modeldefinition.parser.ASTParserUtils;
 import org.jenkinsci.plugins.pipeline.modeldefinition.when.DeclarativeStageConditional;
 import org.jenkinsci.plugins.pipeline.modeldefinition.when.DeclarativeStageConditionalDescriptor;
+import org.jenkinsci.plugins.pipeline.modeldefinition.when.PureStageConditional;
 import org.jenkinsci.plugins.pipeline.modeldefinition.when.utils.Comparator;
 import org.jenkinsci.plugins.pipeline.modeldefinition.when.utils.EnvironmentNames;
 import org.kohsuke.stapler.DataBoundConstructor;
 import org.kohsuke.stapler.DataBoundSetter;
 
 import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
 
 import static org.apache.commons.lang.StringUtils.isNotEmpty;
 import static org.jenkinsci.plugins.pipeline.modeldefinition.when.utils.EnvironmentNames.*;
 
-public class ChangeRequestConditional extends DeclarativeStageConditional<ChangeRequestConditional> {
+public class ChangeRequestConditional extends DeclarativeStageConditional<ChangeRequestConditional>
+        implements PureStageConditional {
 
     private String id;
     private String target;
@@ -246,6 +249,11 @@ public class ChangeRequestConditional extends DeclarativeStageConditional<Change
         }
     }
 
+    @Override
+    public boolean evaluatePure(@Nonnull EnvVars env) {
+        return matches(env);
+    }
+
     @Extension
     @Symbol("changeRequest")
     public static class DescriptorImpl extends DeclarativeStageConditionalDescriptor<ChangeRequestConditional> {
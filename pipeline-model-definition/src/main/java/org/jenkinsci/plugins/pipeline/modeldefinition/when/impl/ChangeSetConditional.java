@@ -32,6 +32,7 @@ import org.jenkinsci.plugins.pipeline.modeldefinition.ast.ModelASTWhenContent;
 import org.jenkinsci.plugins.pipeline.modeldefinition.parser.ASTParserUtils;
 import org.jenkinsci.plugins.pipeline.modeldefinition.when.DeclarativeStageConditional;
 import org.jenkinsci.plugins.pipeline.modeldefinition.when.DeclarativeStageConditionalDescriptor;
+import org.jenkinsci.plugins.pipeline.modeldefinition.when.utils.GlobMatcher;
 import org.kohsuke.stapler.DataBoundConstructor;
 import org.kohsuke.stapler.DataBoundSetter;
 
@@ -47,6 +48,7 @@ public class ChangeSetConditional extends DeclarativeStageConditional<ChangeSetC
 
     private String glob;
     private boolean caseSensitive;
+    private transient GlobMatcher globMatcher;
 
     @DataBoundConstructor
     public ChangeSetConditional(String glob) {
@@ -65,6 +67,20 @@ public class ChangeSetConditional extends DeclarativeStageConditional<ChangeSetC
     @DataBoundSetter
     public void setCaseSensitive(boolean caseSensitive) {
         this.caseSensitive = caseSensitive;
+        this.globMatcher = null;
+    }
+
+    /**
+     * The compiled {@link #getGlob()}, using '/' as directory separator.
+     */
+    @Nonnull
+    public GlobMatcher getGlobMatcher() {
+        GlobMatcher m = globMatcher;
+        if (m == null) {
+            m = GlobMatcher.forPattern(glob.replace('\\', '/'), caseSensitive);
+            globMatcher = m;
+        }
+        return m;
     }
 
     @Extension
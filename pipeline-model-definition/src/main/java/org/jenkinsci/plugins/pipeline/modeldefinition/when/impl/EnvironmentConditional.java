@@ -25,6 +25,7 @@
 
 package org.jenkinsci.plugins.pipeline.modeldefinition.when.impl;
 
+import hudson.EnvVars;
 import hudson.Extension;
 import org.codehaus.groovy.ast.expr.Expression;
 import org.jenkinsci.Symbol;
@@ -32,6 +33,7 @@ import org.jenkinsci.plugins.pipeline.modeldefinition.ast.ModelASTWhenContent;
 import org.jenkinsci.plugins.pipeline.modeldefinition.parser.ASTParserUtils;
 import org.jenkinsci.plugins.pipeline.modeldefinition.when.DeclarativeStageConditional;
 import org.jenkinsci.plugins.pipeline.modeldefinition.when.DeclarativeStageConditionalDescriptor;
+import org.jenkinsci.plugins.pipeline.modeldefinition.when.PureStageConditional;
 import org.kohsuke.stapler.DataBoundConstructor;
 import org.kohsuke.stapler.DataBoundSetter;
 
@@ -43,7 +45,8 @@ import static org.apache.commons.lang.StringUtils.isEmpty;
 /**
  * Stage condition based on environment variable equality.
  */
-public class EnvironmentConditional extends DeclarativeStageConditional<EnvironmentConditional> {
+public class EnvironmentConditional extends DeclarativeStageConditional<EnvironmentConditional>
+        implements PureStageConditional {
     private final String name;
     private final String value;
     private boolean ignoreCase = false;
@@ -83,6 +86,11 @@ public class EnvironmentConditional extends DeclarativeStageConditional<Environm
         }
     }
 
+    @Override
+    public boolean evaluatePure(@Nonnull EnvVars env) {
+        return environmentMatches(value, env.get(name));
+    }
+
     @Extension
     @Symbol("environment")
     public static class DescriptorImpl extends DeclarativeStageConditionalDescriptor<EnvironmentConditional> {
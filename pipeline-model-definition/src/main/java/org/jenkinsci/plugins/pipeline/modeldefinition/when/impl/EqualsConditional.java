@@ -24,13 +24,16 @@
 
 package org.jenkinsci.plugins.pipeline.modeldefinition.when.impl;
 
+import hudson.EnvVars;
 import hudson.Extension;
 import org.codehaus.groovy.ast.expr.Expression;
+import org.codehaus.groovy.runtime.ScriptBytecodeAdapter;
 import org.jenkinsci.Symbol;
 import org.jenkinsci.plugins.pipeline.modeldefinition.ast.ModelASTWhenContent;
 import org.jenkinsci.plugins.pipeline.modeldefinition.parser.ASTParserUtils;
 import org.jenkinsci.plugins.pipeline.modeldefinition.when.DeclarativeStageConditional;
 import org.jenkinsci.plugins.pipeline.modeldefinition.when.DeclarativeStageConditionalDescriptor;
+import org.jenkinsci.plugins.pipeline.modeldefinition.when.PureStageConditional;
 import org.kohsuke.stapler.DataBoundConstructor;
 
 import javax.annotation.CheckForNull;
@@ -39,7 +42,8 @@ import javax.annotation.Nonnull;
 /**
  * Stage condition based on object equality.
  */
-public class EqualsConditional extends DeclarativeStageConditional<EqualsConditional> {
+public class EqualsConditional extends DeclarativeStageConditional<EqualsConditional>
+        implements PureStageConditional {
     private final Object expected;
     private final Object actual;
 
@@ -57,6 +61,25 @@ public class EqualsConditional extends DeclarativeStageConditional<EqualsConditi
         return expected;
     }
 
+    /**
+     * Only values whose equality can't involve user code are compared outside of the script.
+     */
+    @Override
+    public boolean isPure() {
+        return isSimpleValue(expected) && isSimpleValue(actual);
+    }
+
+    @Override
+    public boolean evaluatePure(@Nonnull EnvVars env) {
+        // Same semantics as Groovy's ==, as used by EqualsConditionalScript.
+        return ScriptBytecodeAdapter.compareEqual(expected, actual);
+    }
+
+    private static boolean isSimpleValue(Object o) {
+        return o == null || o instanceof CharSequence || o instanceof Number || o instanceof Boolean
+                || o instanceof Character;
+    }
+
     @Extension
     @Symbol("equals")
     public static class DescriptorImpl extends DeclarativeStageConditionalDescriptor<EqualsConditional> {
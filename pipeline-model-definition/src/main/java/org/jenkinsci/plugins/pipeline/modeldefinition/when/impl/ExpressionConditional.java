@@ -25,6 +25,7 @@
 package org.jenkinsci.plugins.pipeline.modeldefinition.when.impl;
 
 import groovy.lang.Closure;
+import groovy.lang.Script;
 import hudson.Extension;
 import org.codehaus.groovy.ast.ClassHelper;
 import org.codehaus.groovy.ast.expr.ArgumentListExpression;
@@ -39,10 +40,14 @@ import org.jenkinsci.plugins.pipeline.modeldefinition.parser.BlockStatementMatch
 import org.jenkinsci.plugins.pipeline.modeldefinition.when.DeclarativeStageConditional;
 import org.jenkinsci.plugins.pipeline.modeldefinition.when.DeclarativeStageConditionalDescriptor;
 import org.jenkinsci.plugins.scriptsecurity.sandbox.whitelists.Whitelisted;
+import org.jenkinsci.plugins.workflow.cps.CpsThread;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
 import org.kohsuke.stapler.DataBoundConstructor;
 
 import javax.annotation.CheckForNull;
 import javax.annotation.Nonnull;
+import java.io.IOException;
 
 /**
  * Stage condition based on the current branch. i.e. the env var BRANCH_NAME.
@@ -54,6 +59,9 @@ public class ExpressionConditional extends DeclarativeStageConditional<Expressio
     // Needs to be transient to avoid potential excessive pickling - see JENKINS-48209
     private transient Closure closureBlock;
 
+    // Transient for the same reason, and so the parsed script never outlives the execution it was parsed in.
+    private transient Script parsedBlock;
+
     @Deprecated
     public ExpressionConditional(String block) {
         this.block = block;
@@ -77,6 +85,26 @@ public class ExpressionConditional extends DeclarativeStageConditional<Expressio
         this.closureBlock = closureBlock;
     }
 
+    /**
+     * Get the script for a string expression, parsing it through the current execution's shell the first time it's
+     * needed. The parsed script is rerun on later evaluations of this condition in the same build, including from
+     * other parallel branches, since a bare expression keeps no state on the script instance.
+     *
+     * @return The parsed script, to be run from the CPS thread.
+     */
+    @Restricted(NoExternalUse.class)
+    @Nonnull
+    public Script getParsedBlock() throws IOException {
+        if (parsedBlock == null) {
+            CpsThread thread = CpsThread.current();
+            if (thread == null) {
+                throw new IllegalStateException("Expressions can only be parsed on a CPS thread");
+            }
+            parsedBlock = thread.getExecution().getShell().parse(block);
+        }
+        return parsedBlock;
+    }
+
     @Extension
     @Symbol("expression")
     public static class DescriptorImpl extends DeclarativeStageConditionalDescriptor<ExpressionConditional> {
@@ -25,6 +25,7 @@
 package org.jenkinsci.plugins.pipeline.modeldefinition.when.impl;
 
 import com.google.common.collect.ImmutableList;
+import hudson.EnvVars;
 import hudson.Extension;
 import org.codehaus.groovy.ast.expr.Expression;
 import org.jenkinsci.Symbol;
@@ -32,6 +33,8 @@ import org.jenkinsci.plugins.pipeline.modeldefinition.ast.ModelASTWhenContent;
 import org.jenkinsci.plugins.pipeline.modeldefinition.parser.ASTParserUtils;
 import org.jenkinsci.plugins.pipeline.modeldefinition.when.DeclarativeStageConditional;
 import org.jenkinsci.plugins.pipeline.modeldefinition.when.DeclarativeStageConditionalDescriptor;
+import org.jenkinsci.plugins.pipeline.modeldefinition.when.DeclarativeStageConditionalScript;
+import org.jenkinsci.plugins.pipeline.modeldefinition.when.PureStageConditional;
 import org.kohsuke.stapler.DataBoundConstructor;
 
 import javax.annotation.CheckForNull;
@@ -41,7 +44,8 @@ import java.util.List;
 /**
  * Inverted match of a stage condition
  */
-public class NotConditional extends DeclarativeStageConditional<NotConditional> {
+public class NotConditional extends DeclarativeStageConditional<NotConditional>
+        implements PureStageConditional {
     private DeclarativeStageConditional<? extends DeclarativeStageConditional> child;
 
     @DataBoundConstructor
@@ -59,6 +63,16 @@ public class NotConditional extends DeclarativeStageConditional<NotConditional>
         return ImmutableList.of(child);
     }
 
+    @Override
+    public boolean isPure() {
+        return DeclarativeStageConditionalScript.isPure(child);
+    }
+
+    @Override
+    public boolean evaluatePure(@Nonnull EnvVars env) {
+        return !((PureStageConditional) child).evaluatePure(env);
+    }
+
     @Extension
     @Symbol("not")
     public static class DescriptorImpl extends DeclarativeStageConditionalDescriptor<NotConditional> {
@@ -25,24 +25,26 @@
 
 package org.jenkinsci.plugins.pipeline.modeldefinition.when.impl;
 
+import hudson.EnvVars;
 import hudson.Extension;
 import hudson.util.ListBoxModel;
 import org.apache.commons.lang.StringUtils;
-import org.apache.tools.ant.types.selectors.SelectorUtils;
 import org.codehaus.groovy.ast.expr.Expression;
 import org.jenkinsci.Symbol;
 import org.jenkinsci.plugins.pipeline.modeldefinition.ast.ModelASTWhenContent;
 import org.jenkinsci.plugins.pipeline.modeldefinition.parser.ASTParserUtils;
 import org.jenkinsci.plugins.pipeline.modeldefinition.when.DeclarativeStageConditional;
 import org.jenkinsci.plugins.pipeline.modeldefinition.when.DeclarativeStageConditionalDescriptor;
+import org.jenkinsci.plugins.pipeline.modeldefinition.when.PureStageConditional;
 import org.jenkinsci.plugins.pipeline.modeldefinition.when.utils.Comparator;
 import org.kohsuke.stapler.DataBoundConstructor;
 import org.kohsuke.stapler.DataBoundSetter;
 
 import javax.annotation.CheckForNull;
-import java.io.File;
+import javax.annotation.Nonnull;
 
-public class TagConditional extends DeclarativeStageConditional<TagConditional> {
+public class TagConditional extends DeclarativeStageConditional<TagConditional>
+        implements PureStageConditional {
     private final String pattern;
     private String comparator;
 
@@ -87,6 +89,11 @@ public class TagConditional extends DeclarativeStageConditional<TagConditional>
         return c.compare(pattern, actualTag);
     }
 
+    @Override
+    public boolean evaluatePure(@Nonnull EnvVars env) {
+        return tagMatches(env.get("TAG_NAME"));
+    }
+
     @Extension
     @Symbol("tag")
     public static class DescriptorImpl extends DeclarativeStageConditionalDescriptor<TagConditional> {
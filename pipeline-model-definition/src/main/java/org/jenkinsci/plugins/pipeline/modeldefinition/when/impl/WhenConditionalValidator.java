@@ -34,16 +34,32 @@ import org.jenkinsci.plugins.pipeline.modeldefinition.ast.ModelASTSingleArgument
 import org.jenkinsci.plugins.pipeline.modeldefinition.ast.ModelASTValue;
 import org.jenkinsci.plugins.pipeline.modeldefinition.ast.ModelASTWhenCondition;
 import org.jenkinsci.plugins.pipeline.modeldefinition.validator.DeclarativeValidatorContributor;
+import org.jenkinsci.plugins.pipeline.modeldefinition.when.utils.Comparator;
+import org.jenkinsci.plugins.pipeline.modeldefinition.when.utils.PatternCache;
 import org.jenkinsci.plugins.workflow.flow.FlowExecution;
 
 import javax.annotation.CheckForNull;
 import javax.annotation.Nonnull;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
 
 @Extension
 public class WhenConditionalValidator extends DeclarativeValidatorContributor {
+    /**
+     * The arguments of conditions with a {@link Comparator} which are compared using it.
+     */
+    private static final Map<String, List<String>> COMPARATOR_PATTERN_ARGS = new HashMap<>();
+
+    static {
+        COMPARATOR_PATTERN_ARGS.put("tag", Collections.singletonList("pattern"));
+        COMPARATOR_PATTERN_ARGS.put("changeRequest", Arrays.asList("id", "target", "branch", "fork", "url", "title",
+                "author", "authorDisplayName", "authorEmail"));
+    }
 
     @CheckForNull
     @Override
@@ -54,12 +70,27 @@ public class WhenConditionalValidator extends DeclarativeValidatorContributor {
                 return Messages.WhenConditionalValidator_changelog_missingParameter();
             } else {
                 try {
-                    Pattern.compile(pattern);
-                    Pattern.compile(ChangeLogConditional.expandForMultiLine(pattern), Pattern.MULTILINE | Pattern.DOTALL);
+                    PatternCache.compile(pattern);
+                    PatternCache.compile(ChangeLogConditional.expandForMultiLine(pattern), Pattern.MULTILINE | Pattern.DOTALL);
                 } catch (PatternSyntaxException e) {
                     return Messages.WhenConditionalValidator_changelog_badPattern(pattern, e.getMessage());
                 }
             }
+        } else if (COMPARATOR_PATTERN_ARGS.containsKey(condition.getName()) &&
+                condition.getArgs() instanceof ModelASTNamedArgumentList) {
+            Map<String, ?> args = ((ModelASTNamedArgumentList) condition.getArgs()).argListToMap();
+            Object comparator = args.get("comparator");
+            if (comparator instanceof String && Comparator.get((String) comparator, null) == Comparator.REGEXP) {
+                for (String argName : COMPARATOR_PATTERN_ARGS.get(condition.getName())) {
+                    Object pattern = args.get(argName);
+                    if (pattern instanceof String) {
+                        String error = PatternCache.validate((String) pattern);
+                        if (error != null) {
+                            return Messages.WhenConditionalValidator_comparator_badPattern(pattern, argName, error);
+                        }
+                    }
+                }
+            }
         }
 
         return null;
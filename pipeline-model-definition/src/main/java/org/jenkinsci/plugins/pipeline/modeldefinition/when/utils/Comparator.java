@@ -27,12 +27,10 @@ package org.jenkinsci.plugins.pipeline.modeldefinition.when.utils;
 
 import hudson.util.ListBoxModel;
 import org.apache.commons.lang.StringUtils;
-import org.apache.tools.ant.types.selectors.SelectorUtils;
 import org.jenkinsci.plugins.pipeline.modeldefinition.Messages;
 import org.jvnet.localizer.Localizable;
 
 import javax.annotation.Nonnull;
-import java.io.File;
 
 import static org.apache.commons.lang.StringUtils.defaultIfBlank;
 
@@ -47,11 +45,7 @@ public enum Comparator {
         @Override
         public boolean compare(@Nonnull String pattern, String actual) {
             actual = defaultIfBlank(actual, "");
-            // replace with the platform specific directory separator before
-            // invoking Ant's platform specific path matching.
-            String safeCompare = pattern.replace('/', File.separatorChar);
-            String safeName = actual.replace('/', File.separatorChar);
-            return SelectorUtils.matchPath(safeCompare, safeName, false);
+            return GlobMatcher.forPattern(pattern, false).matches(actual);
         }
     },
     /**
@@ -61,8 +55,7 @@ public enum Comparator {
         @Override
         public boolean compare(@Nonnull String pattern, String actual) {
             actual = defaultIfBlank(actual, "");
-            //TODO validation for pattern compile
-            return actual.matches(pattern);
+            return PatternCache.compile(pattern).matcher(actual).matches();
         }
     },
     /**
@@ -0,0 +1,178 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2018, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ */
+
+package org.jenkinsci.plugins.pipeline.modeldefinition.when.utils;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.apache.tools.ant.types.selectors.SelectorUtils;
+import org.apache.tools.ant.types.selectors.TokenizedPath;
+import org.apache.tools.ant.types.selectors.TokenizedPattern;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import java.io.File;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * An ANT style "glob" pattern, parsed once and then matched against any number of paths. Matches exactly what
+ * {@link SelectorUtils#matchPath(String, String, boolean)} would with both the pattern and the path using the platform
+ * specific directory separator, but paths which can't possibly match, because they don't start with the literal
+ * directories at the start of the pattern, are rejected without being tokenized, and case folding of the pattern is
+ * only done once.
+ */
+@Restricted(NoExternalUse.class)
+public final class GlobMatcher {
+    private static final Cache<String, GlobMatcher> MATCHERS = CacheBuilder.newBuilder()
+            .maximumSize(500)
+            .build();
+
+    private static final char SEP = File.separatorChar;
+    private static final String DOUBLE_SEP = String.valueOf(SEP) + SEP;
+
+    private final String pattern;
+    private final boolean caseSensitive;
+    private final TokenizedPattern tokenizedPattern;
+    private final String literalPrefix;
+
+    /**
+     * @param pattern The pattern, using '/' (or the platform specific separator) between directories.
+     * @param caseSensitive Whether to match case sensitively.
+     */
+    public GlobMatcher(@Nonnull String pattern, boolean caseSensitive) {
+        this.pattern = pattern;
+        this.caseSensitive = caseSensitive;
+        String safePattern = fold(pattern.replace('/', SEP), caseSensitive);
+        this.tokenizedPattern = new TokenizedPattern(safePattern);
+        this.literalPrefix = literalPrefix(safePattern);
+    }
+
+    /**
+     * Get a shared matcher for the given pattern.
+     */
+    @Nonnull
+    public static GlobMatcher forPattern(@Nonnull final String pattern, final boolean caseSensitive) {
+        try {
+            return MATCHERS.get((caseSensitive ? "C:" : "I:") + pattern, () -> new GlobMatcher(pattern, caseSensitive));
+        } catch (ExecutionException e) {
+            // Can't happen, the constructor doesn't throw checked exceptions.
+            return new GlobMatcher(pattern, caseSensitive);
+        }
+    }
+
+    @Nonnull
+    public String getPattern() {
+        return pattern;
+    }
+
+    public boolean isCaseSensitive() {
+        return caseSensitive;
+    }
+
+    /**
+     * The literal directories at the start of the pattern, using '/' as separator and case folded with
+     * {@link #fold(String, boolean)}. Any path this matcher matches starts with this prefix once folded, unless the path
+     * contains repeated separators or backslashes. Null if the pattern doesn't start with a usable literal.
+     */
+    @CheckForNull
+    public String getLiteralPrefix() {
+        return literalPrefix == null ? null : literalPrefix.replace(SEP, '/');
+    }
+
+    /**
+     * Whether the given path matches the pattern.
+     *
+     * @param path The path, using '/' (or the platform specific separator) between directories.
+     * @return true if it matches.
+     */
+    public boolean matches(@Nonnull String path) {
+        String safePath = fold(path.replace('/', SEP), caseSensitive);
+        if (literalPrefix != null && !safePath.startsWith(literalPrefix) && canRejectByPrefix(safePath)) {
+            return false;
+        }
+        return tokenizedPattern.matchPath(new TokenizedPath(safePath), true);
+    }
+
+    /**
+     * Ant skips empty directories, and treats backslashes as separators in absolute paths on every platform, so only
+     * paths without those can be rejected just by looking at their start.
+     */
+    private static boolean canRejectByPrefix(@Nonnull String safePath) {
+        return !safePath.contains(DOUBLE_SEP) && (SEP == '\\' || safePath.indexOf('\\') == -1);
+    }
+
+    /**
+     * Fold the case of the string the same way Ant's case insensitive matching compares characters, i.e.,
+     * {@link Character#toUpperCase(char)} for each character.
+     */
+    @Nonnull
+    public static String fold(@Nonnull String s, boolean caseSensitive) {
+        if (caseSensitive) {
+            return s;
+        }
+        char[] chars = null;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            char u = Character.toUpperCase(c);
+            if (u != c) {
+                if (chars == null) {
+                    chars = s.toCharArray();
+                }
+                chars[i] = u;
+            }
+        }
+        return chars == null ? s : new String(chars);
+    }
+
+    /**
+     * The part of the pattern up to the last full directory before the first wildcard, without trailing separators.
+     */
+    @CheckForNull
+    private static String literalPrefix(@Nonnull String safePattern) {
+        int star = safePattern.indexOf('*');
+        int question = safePattern.indexOf('?');
+        int wildcard = star == -1 ? question : (question == -1 ? star : Math.min(star, question));
+        String literal = safePattern;
+        if (wildcard != -1) {
+            int lastSep = safePattern.lastIndexOf(SEP, wildcard);
+            literal = lastSep == -1 ? "" : safePattern.substring(0, lastSep);
+        }
+        while (!literal.isEmpty() && literal.charAt(literal.length() - 1) == SEP) {
+            literal = literal.substring(0, literal.length() - 1);
+        }
+        // Ant skips empty directories and handles drive letters specially, so don't try to be clever with those.
+        if (literal.isEmpty() || literal.contains(DOUBLE_SEP) || literal.contains(":")) {
+            return null;
+        }
+        return literal;
+    }
+
+    @Override
+    public String toString() {
+        return "GlobMatcher[" + pattern + (caseSensitive ? "" : ",ignoreCase") + "]";
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2018, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ */
+
+package org.jenkinsci.plugins.pipeline.modeldefinition.when.utils;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Bounded cache of compiled regular expressions, shared by the conditionals and {@link Comparator#REGEXP}, so that the
+ * same expression isn't compiled again for every comparison. Expressions which don't compile are never cached.
+ */
+@Restricted(NoExternalUse.class)
+public final class PatternCache {
+    private static final Cache<String, Pattern> PATTERNS = CacheBuilder.newBuilder()
+            .maximumSize(500)
+            .build();
+
+    private PatternCache() {
+    }
+
+    /**
+     * Get the compiled form of the given expression.
+     *
+     * @param regex The expression
+     * @return The compiled pattern
+     * @throws PatternSyntaxException If the expression is invalid
+     */
+    @Nonnull
+    public static Pattern compile(@Nonnull String regex) {
+        return compile(regex, 0);
+    }
+
+    /**
+     * Get the compiled form of the given expression with the given {@link Pattern} flags.
+     *
+     * @param regex The expression
+     * @param flags The flags, as for {@link Pattern#compile(String, int)}
+     * @return The compiled pattern
+     * @throws PatternSyntaxException If the expression is invalid
+     */
+    @Nonnull
+    public static Pattern compile(@Nonnull String regex, int flags) {
+        String key = flags + ":" + regex;
+        Pattern p = PATTERNS.getIfPresent(key);
+        if (p == null) {
+            p = Pattern.compile(regex, flags);
+            PATTERNS.put(key, p);
+        }
+        return p;
+    }
+
+    /**
+     * Check that the given expression compiles, caching it if it does.
+     *
+     * @param regex The expression
+     * @return The description of the syntax error, or null if the expression is valid.
+     */
+    @CheckForNull
+    public static String validate(@Nonnull String regex) {
+        try {
+            compile(regex);
+            return null;
+        } catch (PatternSyntaxException e) {
+            return e.getMessage();
+        }
+    }
+}
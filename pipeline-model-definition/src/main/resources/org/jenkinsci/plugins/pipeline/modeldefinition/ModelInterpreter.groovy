@@ -28,11 +28,19 @@ import com.cloudbees.groovy.cps.impl.CpsClosure
 import hudson.FilePath
 import hudson.Launcher
 import hudson.model.Result
+import hudson.model.Run
+import org.jenkinsci.plugins.pipeline.modeldefinition.actions.StageDurationsAction
 import org.jenkinsci.plugins.pipeline.modeldefinition.agent.AbstractDockerAgent
+import org.jenkinsci.plugins.pipeline.modeldefinition.agent.AgentPrefetch
 import org.jenkinsci.plugins.pipeline.modeldefinition.model.*
 import org.jenkinsci.plugins.pipeline.modeldefinition.options.DeclarativeOption
+import org.jenkinsci.plugins.pipeline.modeldefinition.options.impl.MaxConcurrency
+import org.jenkinsci.plugins.pipeline.modeldefinition.options.impl.PrefetchAgents
+import org.jenkinsci.plugins.pipeline.modeldefinition.steps.AwaitParallelSlotStep
 import org.jenkinsci.plugins.pipeline.modeldefinition.steps.CredentialWrapper
 import org.jenkinsci.plugins.pipeline.modeldefinition.when.DeclarativeStageConditional
+import org.jenkinsci.plugins.pipeline.modeldefinition.when.DeclarativeStageConditionalScript
+import org.jenkinsci.plugins.pipeline.modeldefinition.when.utils.StaticConditionalEvaluator
 import org.jenkinsci.plugins.workflow.cps.CpsScript
 import org.jenkinsci.plugins.workflow.steps.MissingContextVariableException
 import org.jenkinsci.plugins.workflow.support.steps.build.RunWrapper
@@ -48,6 +56,28 @@ import javax.annotation.Nonnull
 class ModelInterpreter implements Serializable {
     private CpsScript script
 
+    /**
+     * Results of the when conditions that could be decided when the build started, by stage name.
+     */
+    private Map<String,Boolean> staticWhenResults = [:]
+
+    /**
+     * Names of the stages running on an agent already acquired for them by the {@code stickyAgent} option, if any.
+     */
+    private List<String> stagesOnStickyAgent
+
+    /**
+     * The top-level stage which must have its agent before the agents of the following stages are requested in
+     * advance by the {@code prefetchAgents} option, if any.
+     */
+    private String prefetchOnAgentOf
+
+    /**
+     * The environment variables contributed by each tool already installed in this build, by node name, tool type and
+     * tool version.
+     */
+    private Map<String,List<String>> installedTools = [:]
+
     ModelInterpreter(CpsScript script) {
         this.script = script
     }
@@ -61,6 +91,8 @@ class ModelInterpreter implements Serializable {
 
             Utils.updateRunAndJobActions(script, root.astUUID)
 
+            staticWhenResults = StaticConditionalEvaluator.evaluate(script, root)
+
             try {
                 loadLibraries(root)
 
@@ -72,15 +104,14 @@ class ModelInterpreter implements Serializable {
                         withEnvBlock(root.getEnvVars(script)) {
                             inWrappers(root.options?.wrappers) {
                                 toolsBlock(root.agent, root.tools) {
-                                    root.stages.stages.each { thisStage ->
-                                        try {
-                                            evaluateStage(root, thisStage.agent ?: root.agent, thisStage, firstError).call()
-                                        } catch (Exception e) {
-                                            script.getProperty("currentBuild").result = Utils.getResultFromException(e)
-                                            Utils.markStageFailedAndContinued(thisStage.name)
-                                            if (firstError == null) {
-                                                firstError = e
-                                            }
+                                    List<List<Stage>> groups = groupStagesByAgent(root)
+                                    for (int i = 0; i < groups.size(); i++) {
+                                        List<Stage> group = groups.get(i)
+                                        prefetchAgents(root, groups, i, firstError)
+                                        if (group.size() > 1) {
+                                            firstError = executeOnStickyAgent(root, group, firstError)
+                                        } else {
+                                            firstError = executeTopLevelStage(root, group.get(0), firstError)
                                         }
                                     }
 
@@ -110,6 +141,7 @@ class ModelInterpreter implements Serializable {
                     firstError = e
                 }
             } finally {
+                AgentPrefetch.releaseAll(script.$build())
                 // If we hit an exception somewhere *before* we got to parallel, we still need to do post-build tasks.
                 if (!postBuildRun) {
                     try {
@@ -127,6 +159,176 @@ class ModelInterpreter implements Serializable {
         }
     }
 
+    /**
+     * Execute a single top-level stage, recording any failure.
+     *
+     * @return The first error in the build so far, if any.
+     */
+    def executeTopLevelStage(Root root, Stage thisStage, Throwable firstError) {
+        try {
+            evaluateStage(root, thisStage.agent ?: root.agent, thisStage, firstError).call()
+        } catch (Exception e) {
+            script.getProperty("currentBuild").result = Utils.getResultFromException(e)
+            Utils.markStageFailedAndContinued(thisStage.name)
+            if (firstError == null) {
+                firstError = e
+            }
+        }
+        return firstError
+    }
+
+    /**
+     * Execute consecutive top-level stages with the same agent on a single allocation of that agent.
+     *
+     * @return The first error in the build so far, if any.
+     */
+    def executeOnStickyAgent(Root root, List<Stage> group, Throwable firstError) {
+        if (firstError != null) {
+            // They'll all be skipped, so there's no point in getting the agent.
+            group.each { thisStage ->
+                firstError = executeTopLevelStage(root, thisStage, firstError)
+            }
+            return firstError
+        }
+
+        Stage first = group.get(0)
+        List<String> executed = []
+        try {
+            inDeclarativeAgent(first, root, first.agent) {
+                stagesOnStickyAgent = stageNames(group)
+                try {
+                    group.each { thisStage ->
+                        executed.add(thisStage.name)
+                        firstError = executeTopLevelStage(root, thisStage, firstError)
+                    }
+                } finally {
+                    stagesOnStickyAgent = null
+                }
+            }
+        } catch (Exception e) {
+            // Getting or releasing the agent failed, so skip any of the stages which didn't get to run.
+            script.getProperty("currentBuild").result = Utils.getResultFromException(e)
+            if (firstError == null) {
+                firstError = e
+            }
+            group.each { thisStage ->
+                if (!executed.contains(thisStage.name)) {
+                    firstError = executeTopLevelStage(root, thisStage, firstError)
+                }
+            }
+        }
+        return firstError
+    }
+
+    /**
+     * If the {@code prefetchAgents} option is given, release the placeholder for the current stage's agent, since the
+     * stage will now ask for it itself or be skipped, and request the agents of the stages following it. If the current
+     * stage gets an agent of its own, that's only done once it has the agent - see {@link #prefetchDeferredAgents} -
+     * so the placeholders never compete with the current stage for an executor.
+     *
+     * @param groups The top-level stages, as grouped by {@link #groupStagesByAgent(Root)}.
+     * @param current The index of the group about to be executed.
+     */
+    @NonCPS
+    private void prefetchAgents(Root root, List<List<Stage>> groups, int current, Throwable firstError) {
+        PrefetchAgents option = (PrefetchAgents) root.options?.options?.get("prefetchAgents")
+        if (option == null) {
+            return
+        }
+        Run<?,?> run = script.$build()
+        Stage currentStage = groups.get(current).get(0)
+        AgentPrefetch.release(run, currentStage.name)
+        prefetchOnAgentOf = null
+        if (firstError != null) {
+            // Everything from here on will be skipped.
+            AgentPrefetch.releaseAll(run)
+            return
+        }
+        if (currentStage.agent != null && staticWhenResults?.get(currentStage.name) != Boolean.FALSE &&
+            AgentPrefetch.labelFor(currentStage.agent.getDeclarativeAgent(root, currentStage)) != null) {
+            prefetchOnAgentOf = currentStage.name
+        } else {
+            requestFollowingAgents(root, option, run, groups, current)
+        }
+    }
+
+    /**
+     * Called once a stage has its agent. If the agents of the stages following it were waiting for that, request them
+     * now.
+     */
+    @NonCPS
+    private void prefetchDeferredAgents(Root root, Object context) {
+        if (prefetchOnAgentOf == null || !(context instanceof Stage) || ((Stage) context).name != prefetchOnAgentOf) {
+            return
+        }
+        prefetchOnAgentOf = null
+        PrefetchAgents option = (PrefetchAgents) root.options?.options?.get("prefetchAgents")
+        List<List<Stage>> groups = groupStagesByAgent(root)
+        int current = groups.findIndexOf { it.get(0).name == ((Stage) context).name }
+        if (option != null && current >= 0) {
+            requestFollowingAgents(root, option, script.$build(), groups, current)
+        }
+    }
+
+    @NonCPS
+    private void requestFollowingAgents(Root root, PrefetchAgents option, Run<?,?> run, List<List<Stage>> groups,
+                                        int current) {
+        int end = Math.min(groups.size(), current + 1 + option.maxPrefetches)
+        for (int i = current + 1; i < end; i++) {
+            Stage next = groups.get(i).get(0)
+            if (next.agent != null && staticWhenResults?.get(next.name) != Boolean.FALSE &&
+                AgentPrefetch.prefetch(run, next.name, next.agent.getDeclarativeAgent(root, next))) {
+                Utils.logToTaskListener("Requesting the agent for stage '${next.name}' in advance")
+            }
+        }
+    }
+
+    /**
+     * Split the top-level stages into groups to execute on a single agent allocation. Unless the {@code stickyAgent}
+     * option is given, every stage is in a group of its own.
+     */
+    @NonCPS
+    List<List<Stage>> groupStagesByAgent(Root root) {
+        boolean sticky = root.options?.options?.get("stickyAgent") != null
+        List<List<Stage>> groups = []
+        List<Stage> current = null
+        for (Stage thisStage : root.stages.stages) {
+            if (sticky && current != null && canShareAgent(current.get(current.size() - 1), thisStage)) {
+                current.add(thisStage)
+            } else {
+                current = [thisStage]
+                groups.add(current)
+            }
+        }
+        return groups
+    }
+
+    @NonCPS
+    private boolean canShareAgent(Stage previous, Stage next) {
+        return canHaveStickyAgent(previous) && canHaveStickyAgent(next) &&
+            previous.agent.getMap() == next.agent.getMap()
+    }
+
+    @NonCPS
+    private boolean canHaveStickyAgent(Stage thisStage) {
+        return thisStage.agent != null &&
+            !thisStage.agent.getMap().containsKey("none") &&
+            thisStage.parallel == null &&
+            thisStage.matrix == null &&
+            thisStage.options == null &&
+            !thisStage.when?.beforeAgent &&
+            staticWhenResults?.get(thisStage.name) != Boolean.FALSE
+    }
+
+    @NonCPS
+    private static List<String> stageNames(List<Stage> stages) {
+        List<String> names = []
+        for (Stage s : stages) {
+            names.add(s.name)
+        }
+        return names
+    }
+
     /**
      * Actually execute a closure for a stage, conditional or post action.
      *
@@ -141,7 +343,14 @@ class ModelInterpreter implements Serializable {
     def getParallelStages(Root root, Agent parentAgent, Stage thisStage, Throwable firstError, Stage parentStage,
                           boolean skippedForFailure, boolean skippedForUnstable, boolean skippedForWhen) {
         def parallelStages = [:]
-        thisStage?.parallel?.stages?.each { parallelStage ->
+        int maxConcurrency = getMaxConcurrency(root, thisStage)
+        boolean longestFirst = isLongestFirst(root, thisStage)
+        List<Stage> branches = thisStage?.parallel?.stages ?: []
+        if (longestFirst) {
+            branches = orderLongestFirst(branches, StageDurationsAction.previousDurations(script.$build()))
+        }
+        def slots = maxConcurrency > 0 ? newSlots(branches.size()) : null
+        branches.each { parallelStage ->
             if (skippedForFailure) {
                 parallelStages.put(parallelStage.name, {
                     script.stage(parallelStage.name) {
@@ -164,8 +373,14 @@ class ModelInterpreter implements Serializable {
                     }
                 })
             } else {
-                parallelStages.put(parallelStage.name,
-                    evaluateStage(root, thisStage.agent ?: parentAgent, parallelStage, firstError, thisStage))
+                def branch = evaluateStage(root, thisStage.agent ?: parentAgent, parallelStage, firstError, thisStage)
+                if (longestFirst) {
+                    branch = timedBranch(parallelStage.name, branch)
+                }
+                if (maxConcurrency > 0) {
+                    branch = boundedBranch(slots, parallelStages.size(), maxConcurrency, branch)
+                }
+                parallelStages.put(parallelStage.name, branch)
             }
         }
         if (!parallelStages.isEmpty() && thisStage.failFast) {
@@ -176,6 +391,156 @@ class ModelInterpreter implements Serializable {
 
     }
 
+    /**
+     * Expand a matrix stage into a parallel branch for each of its cells, running a copy of the stage with the cell's
+     * axis values set as environment variables. The cells are computed from the axes here, when the stage runs, and
+     * each cell's stage is only created when its branch starts.
+     */
+    def getMatrixCells(Root root, Agent parentAgent, Stage thisStage, Throwable firstError) {
+        def cells = [:]
+        Matrix matrix = thisStage.matrix
+        int maxConcurrency = getMaxConcurrency(root, thisStage)
+        int cellCount = matrix.cellCount
+        def slots = maxConcurrency > 0 ? newSlots(cellCount) : null
+        for (int i = 0; i < cellCount; i++) {
+            int index = i
+            def branch = {
+                Map<String,String> cell = matrix.cellAt(index)
+                script.withEnv(cell.collect { k, v -> "${k}=${v}".toString() }) {
+                    evaluateStage(root, parentAgent, thisStage.forMatrixCell(cell), firstError, thisStage).call()
+                }
+            }
+            if (maxConcurrency > 0) {
+                branch = boundedBranch(slots, index, maxConcurrency, branch)
+            }
+            cells.put(Matrix.cellName(thisStage.name, matrix.cellAt(index)), branch)
+        }
+        if (!cells.isEmpty() && thisStage.failFast) {
+            cells.put("failFast", thisStage.failFast)
+        }
+
+        return cells
+    }
+
+    /**
+     * Get the maximum number of branches of the given parallel stage to run at once, from the stage's own options or,
+     * failing that, the top-level options.
+     *
+     * @return The limit, or 0 if there is none.
+     */
+    int getMaxConcurrency(Root root, Stage thisStage) {
+        MaxConcurrency limit = (MaxConcurrency) (thisStage?.options?.options?.get("maxConcurrency") ?:
+            root?.options?.options?.get("maxConcurrency"))
+        return limit != null ? limit.maxConcurrency : 0
+    }
+
+    /**
+     * Whether the branches of the given parallel stage should be started longest-first, per the stage's own options or
+     * the top-level options.
+     */
+    boolean isLongestFirst(Root root, Stage thisStage) {
+        return thisStage?.options?.options?.get("longestFirst") != null ||
+            root?.options?.options?.get("longestFirst") != null
+    }
+
+    /**
+     * Sort parallel branches by their duration in an earlier build, longest first. Branches with no recorded duration
+     * go first, and ties keep their declared order.
+     *
+     * @param branches The branches in declared order.
+     * @param durations Stage name to duration in milliseconds.
+     * @return A new, sorted list.
+     */
+    @NonCPS
+    static List<Stage> orderLongestFirst(List<Stage> branches, Map<String, Long> durations) {
+        List<Stage> ordered = new ArrayList<>(branches)
+        if (!durations.isEmpty()) {
+            // Collections.sort is stable, so ties keep their declared order.
+            Collections.sort(ordered, { Stage a, Stage b ->
+                Long durationA = durations.get(a.name)
+                Long durationB = durations.get(b.name)
+                return Long.compare(durationB != null ? durationB : Long.MAX_VALUE,
+                    durationA != null ? durationA : Long.MAX_VALUE)
+            } as Comparator<Stage>)
+        }
+        return ordered
+    }
+
+    /**
+     * Wrap a parallel branch so that its duration is recorded for ordering the branches in later builds.
+     */
+    def timedBranch(String stageName, Closure branch) {
+        return {
+            long start = System.currentTimeMillis()
+            try {
+                branch.call()
+            } finally {
+                StageDurationsAction.record(script.$build(), stageName, System.currentTimeMillis() - start)
+            }
+        }
+    }
+
+    /**
+     * Create the state shared by the branches of a parallel limited by {@code maxConcurrency}: the number running, the
+     * index of the next branch to start, the number of branches, and an ID to wake up waiting branches with.
+     */
+    @NonCPS
+    Map newSlots(int count) {
+        return [running: 0, next: 0, count: count, id: "${script.$build().externalizableId}:${UUID.randomUUID()}".toString()]
+    }
+
+    /**
+     * Wrap a parallel branch so that it waits, before entering its stage, until fewer than {@code maxConcurrency}
+     * branches are running and every branch declared before it has started. A waiting branch is woken up by the branch
+     * before it starting or by any branch finishing, rather than polling.
+     *
+     * @param slots The state shared by all branches of the parallel, from {@link #newSlots(int)}.
+     * @param index The position of this branch in the parallel.
+     * @param maxConcurrency The maximum number of branches to run at once.
+     * @param branch The branch body.
+     * @return A closure running the branch body once a slot is free.
+     */
+    def boundedBranch(Map slots, int index, int maxConcurrency, Closure branch) {
+        return {
+            while (!acquireSlot(slots, index, maxConcurrency)) {
+                script.awaitParallelSlot(id: slots.id, index: index)
+            }
+            try {
+                branch.call()
+            } finally {
+                releaseSlot(slots, maxConcurrency)
+            }
+        }
+    }
+
+    @NonCPS
+    static boolean acquireSlot(Map slots, int index, int maxConcurrency) {
+        if (slots.next == index && slots.running < maxConcurrency) {
+            AwaitParallelSlotStep.clear((String) slots.id, index)
+            slots.next++
+            slots.running++
+            signalNextSlot(slots, maxConcurrency)
+            return true
+        }
+        return false
+    }
+
+    @NonCPS
+    static void releaseSlot(Map slots, int maxConcurrency) {
+        slots.running--
+        signalNextSlot(slots, maxConcurrency)
+    }
+
+    /**
+     * Wake up the next branch to start, if there is one and a slot is free for it.
+     */
+    @NonCPS
+    private static void signalNextSlot(Map slots, int maxConcurrency) {
+        if (slots.next < slots.count && slots.running < maxConcurrency) {
+            AwaitParallelSlotStep.signal((String) slots.id, (int) slots.next)
+        }
+    }
+
     def evaluateStage(Root root, Agent parentAgent, Stage thisStage, Throwable firstError, Stage parentStage = null) {
         return {
             def isSkipped = false
@@ -196,11 +561,22 @@ class ModelInterpreter implements Serializable {
                         if (thisStage.parallel != null) {
                             script.parallel(getParallelStages(root, parentAgent, thisStage, firstError, parentStage, false, true, false))
                         }
+                    } else if (staticWhenResults?.get(thisStage.name) == Boolean.FALSE) {
+                        // Known to be skipped since the build started, so don't bother with wrappers or agents.
+                        Utils.logToTaskListener("Stage '${thisStage.name}' skipped due to when conditional")
+                        Utils.markStageSkippedForConditional(thisStage.name)
+                        isSkipped = true
+                        if (thisStage.parallel != null) {
+                            script.parallel(getParallelStages(root, parentAgent, thisStage, firstError, parentStage, false, false, true))
+                        }
+                    } else if (thisStage.matrix != null) {
+                        // Each cell runs the whole stage, including its options, agent, when and post.
+                        script.parallel(getMatrixCells(root, parentAgent, thisStage, firstError))
                     } else {
                         inWrappers(thisStage.options?.wrappers) {
                             if (thisStage.parallel != null) {
                                 stageInput(thisStage.input) {
-                                    if (evaluateWhen(thisStage.when)) {
+                                    if (evaluateWhen(thisStage.when, false, thisStage.name)) {
                                         withCredentialsBlock(thisStage.environment) {
                                             withEnvBlock(thisStage.getEnvVars(script)) {
                                                 script.parallel(getParallelStages(root, parentAgent, thisStage, firstError, parentStage, false, false, false))
@@ -229,7 +605,7 @@ class ModelInterpreter implements Serializable {
                                     // If beforeAgent is true, evaluate the when before entering the agent.
                                     boolean whenPassed = false
                                     if (thisStage.when?.beforeAgent != null && thisStage.when?.beforeAgent) {
-                                        whenPassed = evaluateWhen(thisStage.when)
+                                        whenPassed = evaluateWhen(thisStage.when, false, thisStage.name)
                                         if (whenPassed) {
                                             inDeclarativeAgent(thisStage, root, thisStage.agent) {
                                                 stageBody.call()
@@ -237,7 +613,7 @@ class ModelInterpreter implements Serializable {
                                         }
                                     } else {
                                         inDeclarativeAgent(thisStage, root, thisStage.agent) {
-                                            whenPassed = evaluateWhen(thisStage.when)
+                                            whenPassed = evaluateWhen(thisStage.when, false, thisStage.name)
                                             if (whenPassed) {
                                                 stageBody.call()
                                             }
@@ -354,7 +730,7 @@ class ModelInterpreter implements Serializable {
     def withEnvBlock(Map<String,Closure> envVars, Closure body) {
         if (envVars != null && !envVars.isEmpty()) {
             List<String> evaledEnv = envVars.collect { k, v ->
-                "${k}=${v.call()}"
+                "${k}=${resolveEnvironmentValue(k, v)}"
             }
             return {
                 script.withEnv(evaledEnv) {
@@ -368,6 +744,27 @@ class ModelInterpreter implements Serializable {
         }
     }
 
+    /**
+     * Get the value of an environment variable or credentials ID, calling its closure only if the value isn't already
+     * known from earlier in the build, and recording it if it won't change.
+     *
+     * @param key The environment variable name
+     * @param valueClosure The closure for the value, delegating to its {@link Environment.EnvironmentResolver}
+     * @return The value
+     */
+    def resolveEnvironmentValue(String key, Closure valueClosure) {
+        Environment.EnvironmentResolver resolver = null
+        if (valueClosure.delegate instanceof Environment.EnvironmentResolver) {
+            resolver = (Environment.EnvironmentResolver) valueClosure.delegate
+        }
+        if (resolver != null && resolver.hasMemoizedValue(key)) {
+            return resolver.getMemoizedValue(key)
+        }
+        def value = valueClosure.call()
+        resolver?.memoizeValue(key, value)
+        return value
+    }
+
     /**
      * Execute a given closure within a "withCredentials" block.
      *
@@ -382,8 +779,8 @@ class ModelInterpreter implements Serializable {
             try {
                 RunWrapper currentBuild = (RunWrapper)script.getProperty("currentBuild")
                 Utils.getCredsFromResolver(environment, script).each { k, v ->
-                    String id = (String) v.call()
-                    CredentialsBindingHandler handler = CredentialsBindingHandler.forId(id, currentBuild.rawBuild)
+                    String id = (String) resolveEnvironmentValue(k, v)
+                    CredentialsBindingHandler handler = CredentialsBindingHandler.forIdInRun(id, currentBuild.rawBuild)
                     creds.put(k, new CredentialWrapper(id, handler.getWithCredentialsParameters(id)))
                 }
             } catch (MissingMethodException e) {
@@ -460,15 +857,31 @@ class ModelInterpreter implements Serializable {
 
     def actualToolsInstall(List<List<Object>> toolsList) {
         def toolEnv = []
+        String nodeName = script.getProperty("env").getProperty("NODE_NAME")
 
         toolsList.each { l ->
             String k = l.get(0)
             Closure v = (Closure)l.get(1)
             String toolVer = v.call()
+            String toolType = Tools.typeForKey(k)
+            String installedKey = nodeName != null ? "${nodeName}\n${toolType}\n${toolVer}".toString() : null
 
-            script.tool(name: toolVer, type: Tools.typeForKey(k))
+            List<String> installedEnv = installedKey != null ? installedTools?.get(installedKey) : null
+            if (installedEnv != null) {
+                // Already installed on this node earlier in the build.
+                toolEnv.addAll(installedEnv)
+            } else {
+                script.tool(name: toolVer, type: toolType)
 
-            toolEnv.addAll(script.envVarsForTool(toolId: Tools.typeForKey(k), toolVersion: toolVer))
+                List<String> thisToolEnv = script.envVarsForTool(toolId: toolType, toolVersion: toolVer)
+                if (installedKey != null) {
+                    if (installedTools == null) {
+                        installedTools = [:]
+                    }
+                    installedTools.put(installedKey, thisToolEnv)
+                }
+                toolEnv.addAll(thisToolEnv)
+            }
         }
 
         return toolEnv
@@ -484,7 +897,10 @@ class ModelInterpreter implements Serializable {
      * @return The return of the resulting executed closure
      */
     def inDeclarativeAgent(Object context, Root root, Agent agent, Closure body) {
-        if (agent == null
+        if (context instanceof Stage && stagesOnStickyAgent?.contains(((Stage) context).name)) {
+            // Already on this stage's agent.
+            agent = null
+        } else if (agent == null
             && root.agent.getDeclarativeAgent(root, root) instanceof AbstractDockerAgent
             && root.options?.options?.get("newContainerPerStage") != null) {
             agent = root.agent
@@ -495,6 +911,7 @@ class ModelInterpreter implements Serializable {
             }.call()
         } else {
             return agent.getDeclarativeAgent(root, context).getScript(script).run {
+                prefetchDeferredAgents(root, context)
                 body.call()
             }.call()
         }
@@ -588,18 +1005,25 @@ class ModelInterpreter implements Serializable {
     }
 
     /**
-     *
+     * Evaluates the when conditions for a stage, using the result decided when the build started if there is one.
      */
-    def evaluateWhen(StageConditionals when, boolean skipDueToParent = false) {
+    def evaluateWhen(StageConditionals when, boolean skipDueToParent = false, String stageName = null) {
         if (skipDueToParent) {
             return false
         } else if (when == null) {
             return true
+        } else if (stageName != null && staticWhenResults?.containsKey(stageName)) {
+            return staticWhenResults.get(stageName)
         } else {
             // To allow for referencing environment variables that have not yet been declared pre-parse time, we need
             // to actually instantiate the conditional now, via a closure.
-            return instancesFromClosure(when.rawClosure, DeclarativeStageConditional.class).every {
-                it?.getScript(script)?.evaluate()
+            List<DeclarativeStageConditional> conditionals = instancesFromClosure(when.rawClosure, DeclarativeStageConditional.class)
+            // Conditions which don't need to call any steps are decided directly, without loading their scripts.
+            if (DeclarativeStageConditionalScript.allPure(conditionals)) {
+                return DeclarativeStageConditionalScript.evaluateAllPure(conditionals, script)
+            }
+            return conditionals.every {
+                DeclarativeStageConditionalScript.isPure(it) ? DeclarativeStageConditionalScript.evaluatePure(it, script) : it?.getScript(script)?.evaluate()
             }
         }
     }
@@ -75,11 +75,22 @@ class DockerPipelineFromDockerfileScript extends AbstractDockerPipelineScript<Do
         return {
             def dockerfilePath = describable.getDockerfilePath(script.isUnix())
             try {
-                RunWrapper runWrapper = (RunWrapper)script.getProperty("currentBuild")
-                def hash = Utils.stringToSHA1("${runWrapper.fullProjectName}\n${script.readFile("${dockerfilePath}")}")
-                def imgName = "${hash}"
+                def imgName
+                if (describable.reuseImage) {
+                    imgName = script.dockerfileImageHash(dockerfile: dockerfilePath, dir: describable.getActualDir(),
+                        additionalBuildArgs: describable.getAdditionalBuildArgs())
+                } else {
+                    RunWrapper runWrapper = (RunWrapper)script.getProperty("currentBuild")
+                    def hash = Utils.stringToSHA1("${runWrapper.fullProjectName}\n${script.readFile("${dockerfilePath}")}")
+                    imgName = "${hash}"
+                }
                 def additionalBuildArgs = describable.getAdditionalBuildArgs() ? " ${describable.additionalBuildArgs}" : ""
-                script.sh "docker build -t ${imgName}${additionalBuildArgs} -f \"${dockerfilePath}\" \"${describable.getActualDir()}\""
+                if (describable.reuseImage &&
+                    script.sh(script: "docker image inspect ${imgName} >/dev/null 2>&1", returnStatus: true) == 0) {
+                    script.echo "Reusing existing image ${imgName}"
+                } else {
+                    script.sh "docker build -t ${imgName}${additionalBuildArgs} -f \"${dockerfilePath}\" \"${describable.getActualDir()}\""
+                }
                 script.dockerFingerprintFrom dockerfile: dockerfilePath, image: imgName, toolName: script.env.DOCKER_TOOL_NAME
                 return script.getProperty("docker").image(imgName)
             } catch (FileNotFoundException f) {
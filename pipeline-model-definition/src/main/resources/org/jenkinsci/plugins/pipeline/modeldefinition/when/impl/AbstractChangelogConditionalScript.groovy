@@ -31,7 +31,9 @@ import jenkins.scm.api.SCMHead
 import org.jenkinsci.plugins.pipeline.modeldefinition.when.ChangeLogStrategy
 import org.jenkinsci.plugins.pipeline.modeldefinition.when.DeclarativeStageConditional
 import org.jenkinsci.plugins.pipeline.modeldefinition.when.DeclarativeStageConditionalScript
+import org.jenkinsci.plugins.pipeline.modeldefinition.when.utils.ChangeLogIndex
 import org.jenkinsci.plugins.workflow.cps.CpsScript
+import org.jenkinsci.plugins.workflow.job.WorkflowRun
 import org.jenkinsci.plugins.workflow.multibranch.BranchJobProperty
 import org.jenkinsci.plugins.workflow.support.steps.build.RunWrapper
 
@@ -46,7 +48,7 @@ abstract class AbstractChangelogConditionalScript<S extends DeclarativeStageCond
         initializeEval()
         RunWrapper run = (RunWrapper)this.script.getProperty("currentBuild")
         if (run != null) {
-            List<ChangeLogSet<? extends ChangeLogSet.Entry>> changeSets = []
+            boolean examineAllBuilds = false
             def head = SCMHead.HeadByItem.findHead((Item)run.rawBuild.parent)
             if (head != null) {
                 /*
@@ -63,18 +65,13 @@ abstract class AbstractChangelogConditionalScript<S extends DeclarativeStageCond
 
                 if (ChangeLogStrategy.isExamineAllBuilds(head)) {
                     script.echo "Examining changelog from all builds of this change request."
-                    for (RunWrapper currB = run; currB != null; currB = currB.previousBuild) {
-                        changeSets.addAll(currB.getChangeSets())
-                    }
+                    examineAllBuilds = true
                 }
             }
 
-            if (changeSets.isEmpty()) { //in case none of the above applies
-                changeSets = run.getChangeSets()
-            }
-
-
-            if (changeSets.isEmpty()) {
+            // The index is shared by all conditionals in this build. Don't hold on to it in a local variable, since
+            // it isn't serializable.
+            if (ChangeLogIndex.forRun((WorkflowRun)run.rawBuild, examineAllBuilds).isEmpty()) {
                 if (run.number <= 1) {
                     script.echo "Warning, empty changelog. Probably because this is the first build." //TODO JENKINS-46086
                 } else {
@@ -82,15 +79,23 @@ abstract class AbstractChangelogConditionalScript<S extends DeclarativeStageCond
                 }
                 return false
             }
-            return changeSets.any {def set ->
-                return set.any { def change ->
-                    return matches(change)
-                }
-            }
+            return matches(ChangeLogIndex.forRun((WorkflowRun)run.rawBuild, examineAllBuilds))
         }
         return false
     }
 
+    /**
+     * Checks the changelog index for the build. By default, checks each entry with {@link #matches(ChangeLogSet.Entry)}.
+     * When examining all builds of a change request, that means loading the changelog of every earlier build through
+     * {@link ChangeLogIndex#getEntries()}, so subclasses should override this to use the index's path and message
+     * matching, which works from the summary kept on the previous build instead.
+     */
+    boolean matches(ChangeLogIndex index) {
+        return index.entries.any { def change ->
+            return matches(change)
+        }
+    }
+
     abstract boolean matches(ChangeLogSet.Entry change)
     void initializeEval() {}
 }
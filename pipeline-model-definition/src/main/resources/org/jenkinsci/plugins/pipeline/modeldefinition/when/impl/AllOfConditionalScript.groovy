@@ -37,7 +37,7 @@ class AllOfConditionalScript extends DeclarativeStageConditionalScript<AllOfCond
     @Override
     boolean evaluate() {
         return describable.children.every {
-            it?.getScript(script)?.evaluate()
+            DeclarativeStageConditionalScript.isPure(it) ? DeclarativeStageConditionalScript.evaluatePure(it, script) : it?.getScript(script)?.evaluate()
         }
     }
 }
@@ -37,7 +37,7 @@ class AnyOfConditionalScript extends DeclarativeStageConditionalScript<AnyOfCond
     @Override
     boolean evaluate() {
         return describable.children.any {
-            it?.getScript(script)?.evaluate()
+            DeclarativeStageConditionalScript.isPure(it) ? DeclarativeStageConditionalScript.evaluatePure(it, script) : it?.getScript(script)?.evaluate()
         }
     }
 }
@@ -26,6 +26,7 @@
 package org.jenkinsci.plugins.pipeline.modeldefinition.when.impl
 
 import hudson.scm.ChangeLogSet
+import org.jenkinsci.plugins.pipeline.modeldefinition.when.utils.ChangeLogIndex
 import org.jenkinsci.plugins.workflow.cps.CpsScript
 
 class ChangeLogConditionalScript extends AbstractChangelogConditionalScript<ChangeLogConditional> {
@@ -46,6 +47,11 @@ class ChangeLogConditionalScript extends AbstractChangelogConditionalScript<Chan
         }
     }
 
+    @Override
+    boolean matches(ChangeLogIndex index) {
+        return index.anyMessageMatches(describable.asPattern, describable.multiLinePattern)
+    }
+
     @Override
     boolean matches(ChangeLogSet.Entry change) {
         //Future enhancement could be to somehow return the capture groups as env vars or something
@@ -54,11 +60,11 @@ class ChangeLogConditionalScript extends AbstractChangelogConditionalScript<Chan
         if (gitChangeSetClass != null && change?.getClass()?.isAssignableFrom(gitChangeSetClass)) {
             String title = change.title == null ? "" : change.title
             String comment = change.comment == null ? "" : change.comment
-            return describable.asPattern.matcher(title).matches() || describable.multiLinePattern.matcher(comment).matches()
+            return describable.messageMatches(title, comment)
         } else {
             //Something generic
             String msg = change.msg == null ? "" : change.msg
-            return describable.asPattern.matcher(msg).matches() || describable.multiLinePattern.matcher(msg).matches()
+            return describable.messageMatches(msg, msg)
         }
     }
 }
@@ -26,8 +26,7 @@
 package org.jenkinsci.plugins.pipeline.modeldefinition.when.impl
 
 import hudson.scm.ChangeLogSet
-import org.apache.tools.ant.DirectoryScanner
-import org.apache.tools.ant.types.selectors.SelectorUtils
+import org.jenkinsci.plugins.pipeline.modeldefinition.when.utils.ChangeLogIndex
 import org.jenkinsci.plugins.workflow.cps.CpsScript
 
 class ChangeSetConditionalScript extends AbstractChangelogConditionalScript<ChangeSetConditional> {
@@ -42,11 +41,16 @@ class ChangeSetConditionalScript extends AbstractChangelogConditionalScript<Chan
         glob = describable.glob.replace('\\', '/')
     }
 
+    @Override
+    boolean matches(ChangeLogIndex index) {
+        return index.anyPathMatches(describable.globMatcher)
+    }
+
     @Override
     boolean matches(ChangeLogSet.Entry change) {
         return change.affectedPaths.any { String path ->
             path = path.replace('\\', '/')
-            return SelectorUtils.matchPath(glob, path, describable.isCaseSensitive())
+            return describable.globMatcher.matches(path)
         }
     }
 }
@@ -41,7 +41,8 @@ class ExpressionConditionalScript extends DeclarativeStageConditionalScript<Expr
         Closure closureBlock = describable.closureBlock
 
         if (block != null) {
-            retVal = script.evaluate(block)
+            // Only parse the expression the first time this condition is evaluated in the build.
+            retVal = describable.parsedBlock.run()
         } else if (closureBlock != null) {
             closureBlock.delegate = script
             closureBlock.resolveStrategy = Closure.DELEGATE_FIRST
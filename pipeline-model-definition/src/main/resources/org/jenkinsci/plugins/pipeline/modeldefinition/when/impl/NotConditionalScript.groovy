@@ -38,6 +38,9 @@ class NotConditionalScript extends DeclarativeStageConditionalScript<NotConditio
     @Override
      boolean evaluate() {
         DeclarativeStageConditional child = describable.child
+        if (DeclarativeStageConditionalScript.isPure(child)) {
+            return !DeclarativeStageConditionalScript.evaluatePure(child, script)
+        }
         DeclarativeStageConditionalScript nestedScript = (DeclarativeStageConditionalScript)child?.getScript(script)
 
         return !nestedScript.evaluate()
@@ -165,7 +165,8 @@ public abstract class AbstractModelDefTest extends AbstractDeclarativeTest {
             "when/changelog/changelog",
             "when/changelog/changeset",
             "backslashReductionInEnv",
-            "stageWrapper"
+            "stageWrapper",
+            "matrixStage"
     );
 
     public static final List<String> CONVERT_ONLY_SHOULD_PASS_CONFIGS = ImmutableList.of(
@@ -23,18 +23,25 @@
  */
 package org.jenkinsci.plugins.pipeline.modeldefinition;
 
+import hudson.model.Label;
 import hudson.model.Result;
 import hudson.model.Slave;
 import hudson.slaves.EnvironmentVariablesNodeProperty;
+import org.apache.commons.lang.StringUtils;
+import org.jenkinsci.plugins.workflow.job.WorkflowRun;
 import org.junit.BeforeClass;
 import org.junit.Ignore;
 import org.junit.Test;
 import org.jvnet.hudson.test.Issue;
+import org.jvnet.hudson.test.JenkinsRule;
 
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
 /**
  * @author Andrew Bayer
  */
@@ -63,6 +70,48 @@ public class AgentTest extends AbstractModelDefTest {
                 .go();
     }
 
+    @Test
+    public void stickyAgent() throws Exception {
+        WorkflowRun b = expect("stickyAgent")
+                .logContains("[Pipeline] { (one)",
+                        "one on first",
+                        "two on first, marker: left by one",
+                        "three on second")
+                .go();
+        String log = JenkinsRule.getLog(b);
+        // One node block for stages one and two, another for three.
+        assertEquals(2, StringUtils.countMatches(log, "[Pipeline] node"));
+        assertEquals(2, StringUtils.countMatches(log, "[Pipeline] checkout"));
+    }
+
+    @Test
+    public void prefetchAgents() throws Exception {
+        expect("prefetchAgents")
+                .logContains("Requesting the agent for stage 'two' in advance",
+                        "Requesting the agent for stage 'three' in advance",
+                        "one on first",
+                        "two on second",
+                        "Stage 'three' skipped due to when conditional")
+                .logNotContains("three should not run")
+                .go();
+        // The placeholder for the skipped stage, which no node could take, must not be left behind.
+        assertTrue(j.jenkins.getQueue().isEmpty());
+        // Nor may any placeholder keep holding an executor once the build is over.
+        j.waitUntilNoActivityUpTo(10000);
+    }
+
+    @Test
+    public void prefetchAgentsSameLabelSingleExecutor() throws Exception {
+        // The placeholder for stage two may only be queued once stage one has the agent's only executor.
+        j.createOnlineSlave(Label.get("prefetch-single"));
+        expect("prefetchAgentsSameLabel")
+                .logContains("Requesting the agent for stage 'two' in advance",
+                        "one ran",
+                        "two ran")
+                .go();
+        j.waitUntilNoActivityUpTo(10000);
+    }
+
     @Issue("JENKINS-37932")
     @Test
     public void agentAny() throws Exception {
@@ -221,6 +270,26 @@ public class AgentTest extends AbstractModelDefTest {
                 .go();
     }
 
+    @Test
+    public void fromDockerfileReuseImage() throws Exception {
+        assumeDocker();
+
+        sampleRepo.write("Dockerfile", "FROM ubuntu:14.04\n\nRUN echo 'HI THERE' > /hi-there\n\n");
+        sampleRepo.write("context-file.txt", "" + System.currentTimeMillis());
+        sampleRepo.git("init");
+        sampleRepo.git("add", "Dockerfile", "context-file.txt");
+        sampleRepo.git("commit", "--message=Dockerfile");
+
+        // The first stage builds the image, the second finds it already there.
+        expect("fromDockerfileReuseImage")
+                .logContains("[Pipeline] { (first)",
+                        "docker build -t",
+                        "[Pipeline] { (second)",
+                        "Reusing existing image",
+                        "HI THERE")
+                .go();
+    }
+
     @Issue("JENKINS-41668")
     @Test
     public void fromDockerfileInOtherDir() throws Exception {
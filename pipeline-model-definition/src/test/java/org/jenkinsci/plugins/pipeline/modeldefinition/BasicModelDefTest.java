@@ -79,6 +79,7 @@ import java.util.List;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
@@ -835,6 +836,50 @@ public class BasicModelDefTest extends AbstractModelDefTest {
         assertNotNull(stages);
     }
 
+    @Test
+    public void executionModelActionStoredOncePerJob() throws Exception {
+        WorkflowRun first = expect("executionModelAction").go();
+        WorkflowRun second = j.buildAndAssertSuccess(first.getParent());
+
+        for (WorkflowRun b : Arrays.asList(first, second)) {
+            assertFalse(FileUtils.readFileToString(new File(b.getRootDir(), "build.xml")).contains("ModelASTStage"));
+        }
+        File[] stored = new File(first.getParent().getRootDir(), "declarative-models").listFiles();
+        assertNotNull(stored);
+        assertEquals(1, stored.length);
+
+        for (WorkflowRun b : Arrays.asList(first, second)) {
+            b.reload();
+            ExecutionModelAction action = b.getAction(ExecutionModelAction.class);
+            assertNotNull(action);
+            ModelASTStages stages = action.getStages();
+            assertNotNull(stages);
+            assertEquals(1, stages.getStages().size());
+            assertEquals(action.getStagesUUID(), stages.getUuid().toString());
+        }
+        assertNotEquals(first.getAction(ExecutionModelAction.class).getStagesUUID(),
+                second.getAction(ExecutionModelAction.class).getStagesUUID());
+    }
+
+    @Test
+    public void executionModelPrunedWithLastBuildUsingIt() throws Exception {
+        WorkflowRun first = expect("executionModelAction").go();
+        WorkflowRun second = j.buildAndAssertSuccess(first.getParent());
+        File store = new File(first.getParent().getRootDir(), "declarative-models");
+
+        first.delete();
+        String[] stored = store.list();
+        assertNotNull(stored);
+        assertEquals(1, stored.length);
+        second.reload();
+        assertNotNull(second.getAction(ExecutionModelAction.class).getStages());
+
+        second.delete();
+        stored = store.list();
+        assertNotNull(stored);
+        assertEquals(0, stored.length);
+    }
+
     @Issue("JENKINS-40657")
     @Test
     public void libraryObjectInScript() throws Exception {
@@ -1315,4 +1360,40 @@ public class BasicModelDefTest extends AbstractModelDefTest {
 
     }
 
-}
\ No newline at end of file
+    @Test
+    public void matrixStage() throws Exception {
+        expect("matrixStage")
+                .logContains("[Pipeline] { (test)",
+                        "[Pipeline] { (test (OS=linux, JDK=8))",
+                        "Testing on linux with JDK 8",
+                        "Testing on linux with JDK 11",
+                        "Stage 'test (OS=windows, JDK=8)' skipped due to when conditional",
+                        "Stage 'test (OS=windows, JDK=11)' skipped due to when conditional")
+                .logNotContains("Testing on windows")
+                .go();
+    }
+
+    @Test
+    public void manyStagesDoNotExceedMethodSize() throws Exception {
+        StringBuilder script = new StringBuilder("def outside = 'from outside'\n")
+                .append("pipeline {\n  agent none\n  stages {\n");
+        for (int i = 0; i < 250; i++) {
+            script.append("    stage('stage-").append(i).append("') {\n")
+                    .append("      environment {\n        STAGE_NUM = '").append(i).append("'\n      }\n")
+                    .append("      when {\n        expression { return true }\n      }\n")
+                    .append("      steps {\n        echo \"running stage ${env.STAGE_NUM}\"\n      }\n")
+                    .append("      post {\n        success {\n          echo 'done'\n        }\n      }\n")
+                    .append("    }\n");
+        }
+        script.append("    stage('local') {\n      steps {\n        echo \"value ${outside}\"\n      }\n    }\n")
+                .append("  }\n}\n");
+
+        WorkflowJob p = j.createProject(WorkflowJob.class, "manyStages");
+        p.setDefinition(new CpsFlowDefinition(script.toString(), true));
+        WorkflowRun b = j.buildAndAssertSuccess(p);
+        j.assertLogContains("running stage 0", b);
+        j.assertLogContains("running stage 249", b);
+        j.assertLogContains("value from outside", b);
+    }
+
+}
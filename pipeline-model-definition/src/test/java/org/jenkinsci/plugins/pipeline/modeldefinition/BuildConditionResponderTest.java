@@ -27,6 +27,8 @@ import com.gargoylesoftware.htmlunit.html.HtmlPage;
 import hudson.model.Result;
 import hudson.model.queue.QueueTaskFuture;
 import jenkins.model.Jenkins;
+import org.jenkinsci.plugins.pipeline.modeldefinition.model.BuildCondition;
+import org.jenkinsci.plugins.pipeline.modeldefinition.model.CompletedBuildResultIndex;
 import org.jenkinsci.plugins.workflow.cps.CpsFlowDefinition;
 import org.jenkinsci.plugins.workflow.cps.CpsFlowExecution;
 import org.jenkinsci.plugins.workflow.job.WorkflowJob;
@@ -39,8 +41,12 @@ import org.jvnet.hudson.test.Issue;
 import org.jvnet.hudson.test.JenkinsRule;
 import org.jvnet.hudson.test.MockAuthorizationStrategy;
 
+import java.util.Arrays;
+
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 
 /**
  * @author Andrew Bayer
@@ -122,6 +128,39 @@ public class BuildConditionResponderTest extends AbstractModelDefTest {
                 .go();
     }
 
+    @Test
+    public void cachedConditionTable() throws Exception {
+        assertEquals(Arrays.asList("always", "changed", "fixed", "regression", "aborted", "failure", "success",
+                "unstable", "notBuilt", "cleanup"),
+                BuildCondition.getOrderedConditionNames());
+        assertEquals(BuildCondition.getOrderedConditionNames().size(), BuildCondition.getConditionMethods().size());
+        for (String name : BuildCondition.getOrderedConditionNames()) {
+            assertSame(BuildCondition.getConditionMethods().get(name), BuildCondition.getConditionMethod(name));
+        }
+    }
+
+    @Test
+    public void previousCompletedBuildResultIndex() throws Exception {
+        WorkflowJob job = j.jenkins.createProject(WorkflowJob.class, "result-index");
+        job.setDefinition(new CpsFlowDefinition("error 'oops'", true));
+        WorkflowRun b1 = job.scheduleBuild2(0).waitForStart();
+        j.assertBuildStatus(Result.FAILURE, j.waitForCompletion(b1));
+
+        CompletedBuildResultIndex index = CompletedBuildResultIndex.get();
+        assertNull(index.getPreviousCompletedBuildResult(b1));
+
+        job.setDefinition(new CpsFlowDefinition("echo 'hello'", true));
+        WorkflowRun b2 = j.buildAndAssertSuccess(job);
+        assertEquals(Result.FAILURE, index.getPreviousCompletedBuildResult(b2));
+
+        WorkflowRun b3 = j.buildAndAssertSuccess(job);
+        assertEquals(Result.SUCCESS, index.getPreviousCompletedBuildResult(b3));
+
+        // Deleting the build in between means we should see the first build again.
+        b2.delete();
+        assertEquals(Result.FAILURE, index.getPreviousCompletedBuildResult(b3));
+    }
+
     @Issue("JENKINS-43339")
     @Test
     public void notBuiltFlowInterruptedException() throws Exception {
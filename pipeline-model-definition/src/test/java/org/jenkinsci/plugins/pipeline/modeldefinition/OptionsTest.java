@@ -43,6 +43,7 @@ import hudson.triggers.Trigger;
 import hudson.util.Secret;
 import jenkins.model.BuildDiscarder;
 import jenkins.model.BuildDiscarderProperty;
+import org.apache.commons.lang.StringUtils;
 
 import java.io.Serializable;
 import java.lang.reflect.Field;
@@ -51,6 +52,7 @@ import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 import org.jenkinsci.plugins.pipeline.modeldefinition.actions.DeclarativeJobPropertyTrackerAction;
+import org.jenkinsci.plugins.pipeline.modeldefinition.actions.StageDurationsAction;
 import org.jenkinsci.plugins.workflow.cps.CpsFlowDefinition;
 import org.jenkinsci.plugins.workflow.job.WorkflowJob;
 import org.jenkinsci.plugins.workflow.job.WorkflowRun;
@@ -59,6 +61,7 @@ import org.jenkinsci.plugins.workflow.job.properties.PipelineTriggersJobProperty
 import org.junit.Ignore;
 import org.junit.Test;
 import org.jvnet.hudson.test.Issue;
+import org.jvnet.hudson.test.JenkinsRule;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotEquals;
@@ -168,6 +171,79 @@ public class OptionsTest extends AbstractModelDefTest {
                 .go();
     }
 
+    @Test
+    public void reuseCheckout() throws Exception {
+        expect("reuseCheckout")
+                .logContains("[Pipeline] { (first)",
+                        "[Pipeline] { (second)",
+                        "Reusing earlier checkout of this build in",
+                        "Left by first: from first stage")
+                .logNotContains("Commit is null")
+                .go();
+    }
+
+    @Test
+    public void reuseCheckoutChanged() throws Exception {
+        expect("reuseCheckoutChanged")
+                .logContains("[Pipeline] { (third)",
+                        "Reusing earlier checkout of this build in",
+                        "Left by first: from first stage",
+                        "has changed since, checking out again")
+                .logNotContains("Commit is null")
+                .go();
+    }
+
+    @Test
+    public void checkoutOnceParallel() throws Exception {
+        WorkflowRun b = expect("checkoutOnceParallel")
+                .logContains("[Pipeline] { (first)",
+                        "[Pipeline] { (second)",
+                        "[Pipeline] stash",
+                        "[Pipeline] unstash",
+                        "first sees Jenkinsfile: true",
+                        "second sees Jenkinsfile: true")
+                .go();
+        assertEquals(1, StringUtils.countMatches(JenkinsRule.getLog(b), "[Pipeline] checkout"));
+    }
+
+    @Test
+    public void parallelMaxConcurrency() throws Exception {
+        WorkflowRun b = expect("parallelMaxConcurrency")
+                .logContains("[Pipeline] { (first)",
+                        "[Pipeline] { (second)",
+                        "[Pipeline] { (third)")
+                .go();
+        String log = JenkinsRule.getLog(b);
+        assertTrue(log.indexOf("first finished") < log.indexOf("second started"));
+        assertTrue(log.indexOf("second finished") < log.indexOf("third started"));
+    }
+
+    @Test
+    public void parallelLongestFirst() throws Exception {
+        ExpectationsBuilder e = expect("parallelLongestFirst")
+                .logContains("short started", "long started");
+        String firstLog = JenkinsRule.getLog(e.go());
+        // No history yet, so declared order.
+        assertTrue(firstLog.indexOf("short started") < firstLog.indexOf("long started"));
+
+        String secondLog = JenkinsRule.getLog(e.resetForNewRun(Result.SUCCESS).logContains("short started", "long started").go());
+        assertTrue(secondLog.indexOf("long started") < secondLog.indexOf("short started"));
+    }
+
+    @Test
+    public void stageDurationsIndex() throws Exception {
+        WorkflowJob job = j.jenkins.createProject(WorkflowJob.class, "durations-index");
+        job.setDefinition(new CpsFlowDefinition(pipelineSourceFromResources("parallelLongestFirst"), true));
+        WorkflowRun b1 = j.buildAndAssertSuccess(job);
+
+        // A build which doesn't record any durations doesn't replace those of the first build.
+        job.setDefinition(new CpsFlowDefinition("echo 'hello'", true));
+        j.buildAndAssertSuccess(job);
+        WorkflowRun b3 = j.buildAndAssertSuccess(job);
+        assertEquals(b1.getAction(StageDurationsAction.class).getDurations(), StageDurationsAction.previousDurations(b3));
+        assertTrue(StageDurationsAction.previousDurations(b3).containsKey("long"));
+    }
+
     @Issue("JENKINS-44277")
     @Test
     public void checkoutToSubdirectory() throws Exception {
@@ -26,6 +26,8 @@ package org.jenkinsci.plugins.pipeline.modeldefinition;
 import hudson.model.JDK;
 import hudson.model.Slave;
 import hudson.tasks.Maven;
+import org.apache.commons.lang.StringUtils;
+import org.jenkinsci.plugins.workflow.job.WorkflowRun;
 import org.junit.BeforeClass;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
@@ -33,6 +35,7 @@ import org.jvnet.hudson.test.Issue;
 import org.jvnet.hudson.test.JenkinsRule;
 import org.jvnet.hudson.test.ToolInstallations;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.jvnet.hudson.test.ToolInstallations.configureDefaultMaven;
 
@@ -71,6 +74,18 @@ public class ToolsTest extends AbstractModelDefTest {
                 .go();
     }
 
+    @Test
+    public void toolsInstalledOncePerNode() throws Exception {
+        WorkflowRun b = expect("toolsInstalledOncePerNode")
+                .logContains("[Pipeline] { (foo)", "foo M2_HOME: ", "bar M2_HOME: ", "Apache Maven 3.0.1")
+                .logNotContains("M2_HOME: null")
+                .go();
+        String log = JenkinsRule.getLog(b);
+        // Stages bar and baz reuse the maven installed for the whole pipeline.
+        assertEquals(1, StringUtils.countMatches(log, "[Pipeline] tool"));
+        assertEquals(1, StringUtils.countMatches(log, "[Pipeline] envVarsForTool"));
+    }
+
     @Issue("JENKINS-42338")
     @Test
     public void toolsAndAgentNone() throws Exception {
@@ -888,6 +888,20 @@ public class ValidatorTest extends AbstractModelDefTest {
                 .go();
     }
 
+    @Test
+    public void matrixDuplicateAxis() throws Exception {
+        expectError("matrixDuplicateAxis")
+                .logContains(Messages.ModelValidatorImpl_DuplicateMatrixAxis("OS"))
+                .go();
+    }
+
+    @Test
+    public void matrixDuplicateAxisValue() throws Exception {
+        expectError("matrixDuplicateAxisValue")
+                .logContains(Messages.ModelValidatorImpl_DuplicateMatrixAxisValue("8", "JDK"))
+                .go();
+    }
+
     @Issue("JENKINS-49070")
     @Test
     public void bigIntegerFailure() throws Exception {
@@ -34,6 +34,7 @@ import jenkins.scm.impl.mock.MockSCMDiscoverBranches;
 import jenkins.scm.impl.mock.MockSCMDiscoverChangeRequests;
 import jenkins.scm.impl.mock.MockSCMDiscoverTags;
 import jenkins.scm.impl.mock.MockSCMSource;
+import org.jenkinsci.plugins.pipeline.modeldefinition.actions.ChangeRequestChangeLogAction;
 import org.jenkinsci.plugins.workflow.job.WorkflowJob;
 import org.jenkinsci.plugins.workflow.job.WorkflowRun;
 import org.jenkinsci.plugins.workflow.multibranch.WorkflowMultiBranchProject;
@@ -46,6 +47,7 @@ import java.util.concurrent.ExecutionException;
 
 import static org.hamcrest.collection.IsCollectionWithSize.hasSize;
 import static org.hamcrest.collection.IsEmptyCollection.empty;
+import static org.hamcrest.core.IsCollectionContaining.hasItem;
 import static org.hamcrest.core.IsEqual.equalTo;
 import static org.hamcrest.core.IsNot.not;
 import static org.jenkinsci.plugins.pipeline.modeldefinition.WhenStageTest.waitFor;
@@ -115,6 +117,11 @@ public class WhenStageMultibranchTest extends AbstractModelDefTest {
         j.assertLogContains("Examining changelog from all builds of this change request", build3);
         j.assertLogNotContains("Stage 'Two' skipped due to when conditional", build3);
         j.assertLogNotContains("Warning, empty changelog", build3);
+
+        ChangeRequestChangeLogAction earlierChanges = build3.getAction(ChangeRequestChangeLogAction.class);
+        assertNotNull(earlierChanges);
+        assertThat(earlierChanges.getPaths(), hasItem("webapp/js/somecode.js"));
+        assertThat(earlierChanges.getPaths(), not(hasItem("dontcare.txt")));
     }
 
     @Test
@@ -31,6 +31,7 @@ import com.gargoylesoftware.htmlunit.util.NameValuePair;
 import hudson.model.Queue;
 import hudson.model.Result;
 import hudson.model.Slave;
+import hudson.slaves.EnvironmentVariablesNodeProperty;
 import jenkins.branch.BranchSource;
 import jenkins.scm.api.SCMHead;
 import jenkins.scm.impl.mock.MockSCMController;
@@ -41,6 +42,7 @@ import org.jenkinsci.plugins.pipeline.modeldefinition.endpoints.ModelConverterAc
 import org.jenkinsci.plugins.pipeline.modeldefinition.model.Stage;
 import org.jenkinsci.plugins.pipeline.modeldefinition.when.ChangeLogStrategy;
 import org.jenkinsci.plugins.pipeline.modeldefinition.when.DeclarativeStageConditional;
+import org.jenkinsci.plugins.workflow.cps.CpsFlowDefinition;
 import org.jenkinsci.plugins.workflow.job.WorkflowJob;
 import org.jenkinsci.plugins.workflow.job.WorkflowRun;
 import org.jenkinsci.plugins.workflow.multibranch.WorkflowMultiBranchProject;
@@ -252,6 +254,13 @@ public class WhenStageTest extends AbstractModelDefTest {
                 .logNotContains("Hello,", "Dull World").go();
     }
 
+    @Test
+    public void whenTagBadRegularExpression() throws Exception {
+        expect(Result.FAILURE, "when", "whenTagBadRegularExpression")
+                .logContains("\"release-(\\d+\" is not a valid regular expression for \"pattern\".")
+                .logNotContains("Hello,", "Digit release").go();
+    }
+
     @Test
     public void whenChangelogPR() throws Exception {
         //TODO JENKINS-46086 First time build "always" skips the changelog when git, not when mock
@@ -340,6 +349,47 @@ public class WhenStageTest extends AbstractModelDefTest {
                 .go();
     }
 
+    @Test
+    public void whenBranchFalseSkipsAgent() throws Exception {
+        expect("when", "whenBranchFalseSkipsAgent")
+                .logContains("Hello", "Stage 'Two' skipped due to when conditional")
+                .logNotContains("World", "no-such-label")
+                .go();
+    }
+
+    @Test
+    public void whenBuildingTagFalseSkipsAgent() throws Exception {
+        expect("when", "whenBuildingTagFalseSkipsAgent")
+                .logContains("Hello", "Stage 'Two' skipped due to when conditional")
+                .logNotContains("World", "no-such-label")
+                .go();
+    }
+
+    @Test
+    public void whenEnvironmentSetInScript() throws Exception {
+        EnvironmentVariablesNodeProperty property =
+                new EnvironmentVariablesNodeProperty(new EnvironmentVariablesNodeProperty.Entry("DEPLOY_TARGET", "staging"));
+        j.jenkins.getGlobalNodeProperties().add(property);
+        try {
+            // The variable is changed by a step, so the condition must be evaluated when the stage is reached.
+            expect("when", "whenEnvironmentSetInScript")
+                    .logContains("Deploying to production")
+                    .logNotContains("Stage 'Two' skipped due to when conditional")
+                    .go();
+        } finally {
+            j.jenkins.getGlobalNodeProperties().remove(property);
+        }
+    }
+
+    @Test
+    public void whenPureConditions() throws Exception {
+        expect("when", "whenPureConditions")
+                .logContains("Running One", "Stage 'Two' skipped due to when conditional",
+                        "Evaluating expression in Three", "Running Three")
+                .logNotContains("Evaluating expression in Two", "Running Two")
+                .go();
+    }
+
     @Issue("JENKINS-49226")
     @Test
     public void whenEquals() throws Exception {
@@ -350,6 +400,19 @@ public class WhenStageTest extends AbstractModelDefTest {
         expect.resetForNewRun(Result.SUCCESS).logContains("One", "Hello", "Two", "World").go();
     }
 
+    @Test
+    public void stringExpressionReusedAcrossEvaluations() throws Exception {
+        WorkflowJob job = j.jenkins.createProject(WorkflowJob.class, "stringExpressionReuse");
+        job.setDefinition(new CpsFlowDefinition(pipelineSourceFromResources("when/stringExpressionReuse"), false));
+        WorkflowRun b = j.buildAndAssertSuccess(job);
+
+        j.assertLogContains("Sequential 0: true", b);
+        j.assertLogContains("Sequential 2: true", b);
+        j.assertLogContains("Sequential changed: false", b);
+        j.assertLogContains("Branch first: true", b);
+        j.assertLogContains("Branch second: false", b);
+    }
+
     public static void waitFor(Queue.Item item) throws InterruptedException, ExecutionException {
         while (item != null && item.getFuture() == null) {
             Thread.sleep(200);
@@ -32,6 +32,7 @@ import com.cloudbees.plugins.credentials.CredentialsStore;
 import com.cloudbees.plugins.credentials.domains.Domain;
 import com.cloudbees.plugins.credentials.impl.UsernamePasswordCredentialsImpl;
 import hudson.ExtensionList;
+import hudson.model.Result;
 import hudson.model.Slave;
 import org.jenkinsci.plugins.docker.commons.credentials.DockerRegistryEndpoint;
 import org.jenkinsci.plugins.pipeline.modeldefinition.AbstractModelDefTest;
@@ -96,6 +97,28 @@ public class DeclarativeDockerUtilsTest extends AbstractModelDefTest {
                         "Registry Creds ID is: " + folderCred.getId()).go();
     }
 
+    @Test
+    public void folderConfigChange() throws Exception {
+        Folder folder = j.createProject(Folder.class);
+        getFolderStore(folder).addCredentials(Domain.global(), folderCred);
+        getFolderStore(folder).addCredentials(Domain.global(), grandParentCred);
+        folder.addProperty(new FolderConfig("folder_docker", "https://folder.registry", folderCred.getId()));
+        ExpectationsBuilder expect = expect("declarativeDockerConfig")
+                .inFolder(folder)
+                .runFromRepo(false);
+        expect.logContains("Docker Label is: folder_docker",
+                "Registry URL is: https://folder.registry",
+                "Registry Creds ID is: " + folderCred.getId()).go();
+
+        // Saving the folder must not leave the previously resolved properties around.
+        folder.getProperties().replace(new FolderConfig("changed_docker", "https://changed.registry", grandParentCred.getId()));
+        expect.resetForNewRun(Result.SUCCESS)
+                .logContains("Docker Label is: changed_docker",
+                        "Registry URL is: https://changed.registry",
+                        "Registry Creds ID is: " + grandParentCred.getId())
+                .logNotContains("Docker Label is: folder_docker").go();
+    }
+
     @Test
     public void withDefaults() throws Exception {
         Folder folder = j.createProject(Folder.class);
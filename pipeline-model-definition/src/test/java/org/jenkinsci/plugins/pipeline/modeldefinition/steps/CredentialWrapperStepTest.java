@@ -136,6 +136,16 @@ public class CredentialWrapperStepTest extends AbstractModelDefTest {
                 .archives("cred2.txt", mixedEnvCred2U + ":" + mixedEnvCred2P).go();
     }
 
+    @Test
+    public void credentialsInStages() throws Exception {
+        expect("credentialsInStages")
+                .logContains("LOCAL is prefix-derived-foo",
+                        "LOCAL is prefix-derived-bar")
+                .archives("cred1.txt", mixedEnvCred1Secret)
+                .archives("foo-cred2.txt", mixedEnvCred2U + ":" + mixedEnvCred2P)
+                .archives("bar-cred2.txt", mixedEnvCred2U + ":" + mixedEnvCred2P).go();
+    }
+
     /* TODO: Re-enable once https://issues.jenkins-ci.org/browse/JENKINS-41004 is resolved
     @Test
     public void mixedEnvInFolder() throws Exception {
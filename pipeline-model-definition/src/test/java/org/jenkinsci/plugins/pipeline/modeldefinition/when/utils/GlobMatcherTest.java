@@ -0,0 +1,152 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2018, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.jenkinsci.plugins.pipeline.modeldefinition.when.utils;
+
+import org.apache.tools.ant.types.selectors.SelectorUtils;
+import org.junit.Ignore;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class GlobMatcherTest {
+    private static final String[] PATTERNS = {
+            "**/*.js", "webapp/**", "webapp/js/*.js", "webapp/js/somecode.js", "webapp/", "WEBAPP/JS/**", "*",
+            "**", "release-*", "release/*", "feature/**/test", "/abs/**", "a//b/*", "\u00e4/**", "src/?ain/**", ""
+    };
+
+    private static final String[] PATHS = {
+            "webapp/js/somecode.js", "webapp/js/other.css", "webapp", "Webapp/JS/x.js", "README.md", "release-1.0",
+            "release/1.0", "release/1.0/hotfix", "feature/a/b/test", "feature/test", "/abs/file", "abs/file",
+            "a/b/c", "a//b/c", "\u00c4/x", "\u00e4/x", "src/main/java", "src/Main/java", "webapp/", ""
+    };
+
+    @Test
+    public void sameAsAnt() throws Exception {
+        for (String pattern : PATTERNS) {
+            for (String path : PATHS) {
+                for (boolean caseSensitive : new boolean[]{true, false}) {
+                    assertEquals(pattern + " vs " + path + (caseSensitive ? "" : " ignoring case"),
+                            antMatches(pattern, path, caseSensitive),
+                            new GlobMatcher(pattern, caseSensitive).matches(path));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void literalPrefix() throws Exception {
+        assertEquals("webapp/js", new GlobMatcher("webapp/js/*.js", true).getLiteralPrefix());
+        assertEquals("WEBAPP/JS", new GlobMatcher("webapp/js/*.js", false).getLiteralPrefix());
+        assertEquals("webapp", new GlobMatcher("webapp/", true).getLiteralPrefix());
+        assertNull(new GlobMatcher("**/*.js", true).getLiteralPrefix());
+        assertNull(new GlobMatcher("release-*", true).getLiteralPrefix());
+        assertNull(new GlobMatcher("a//b/*", true).getLiteralPrefix());
+        assertTrue(GlobMatcher.forPattern("release/*", false).matches("Release/1.0"));
+        assertFalse(GlobMatcher.forPattern("release/*", true).matches("Release/1.0"));
+    }
+
+    /**
+     * Matches exactly the same paths as Ant on a changeset with 50k touched files, including patterns whose literal
+     * prefix rules most paths out.
+     */
+    @Test
+    public void sameAsAntOnLargeChangeset() throws Exception {
+        List<String> paths = largeChangeset();
+        String[] globs = {"module3/src/main/**", "module3/src/test/**", "**/pkg3/*.java", "**/pkg3/*.groovy",
+                "docs/**/*.md"};
+
+        int matches = 0;
+        for (String glob : globs) {
+            GlobMatcher matcher = new GlobMatcher(glob, false);
+            for (String p : paths) {
+                boolean expected = antMatches(glob, p, false);
+                assertEquals(glob + " against " + p, expected, matcher.matches(p));
+                if (expected) {
+                    matches++;
+                }
+            }
+        }
+        // 1000 paths in module3, and 50000 / 7 rounded up in pkg3.
+        assertEquals(1000 + 7143, matches);
+    }
+
+    /**
+     * Rough benchmark against Ant's matcher, not run as part of the build. Run it by hand to compare the two.
+     */
+    @Ignore("Benchmark - run manually")
+    @Test
+    public void benchmarkAgainstAnt() throws Exception {
+        List<String> paths = largeChangeset();
+        String[] globs = {"module3/src/main/**", "module3/src/test/**", "**/pkg3/*.java", "docs/**/*.md"};
+        for (int round = 0; round < 5; round++) {
+            long antStart = System.nanoTime();
+            int antMatches = 0;
+            for (String glob : globs) {
+                for (String p : paths) {
+                    if (antMatches(glob, p, false)) {
+                        antMatches++;
+                    }
+                }
+            }
+            long antTime = System.nanoTime() - antStart;
+
+            long compiledStart = System.nanoTime();
+            int compiledMatches = 0;
+            for (String glob : globs) {
+                GlobMatcher matcher = new GlobMatcher(glob, false);
+                for (String p : paths) {
+                    if (matcher.matches(p)) {
+                        compiledMatches++;
+                    }
+                }
+            }
+            long compiledTime = System.nanoTime() - compiledStart;
+
+            assertEquals(antMatches, compiledMatches);
+            System.out.println("Round " + round + ": Ant " + antTime / 1000000 + "ms, compiled " +
+                    compiledTime / 1000000 + "ms");
+        }
+    }
+
+    private static List<String> largeChangeset() {
+        List<String> paths = new ArrayList<>();
+        for (int i = 0; i < 50000; i++) {
+            paths.add("module" + (i % 50) + "/src/main/java/org/example/pkg" + (i % 7) + "/File" + i + ".java");
+        }
+        return paths;
+    }
+
+    private static boolean antMatches(String pattern, String path, boolean caseSensitive) {
+        return SelectorUtils.matchPath(pattern.replace('/', File.separatorChar), path.replace('/', File.separatorChar),
+                caseSensitive);
+    }
+}
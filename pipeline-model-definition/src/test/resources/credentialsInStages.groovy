@@ -0,0 +1,59 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2018, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ */
+
+pipeline {
+    environment {
+        PREFIX = "prefix"
+        CRED1 = credentials("cred1")
+        DERIVED = "${PREFIX}-derived"
+    }
+
+    agent any
+
+    stages {
+        stage("foo") {
+            environment {
+                CRED2 = credentials("cred2")
+                LOCAL = "${DERIVED}-foo"
+            }
+            steps {
+                echo "LOCAL is $LOCAL"
+                writeFile file: "foo-cred2.txt", text: "${CRED2}"
+            }
+        }
+        stage("bar") {
+            environment {
+                CRED2 = credentials("cred2")
+                LOCAL = "${DERIVED}-bar"
+            }
+            steps {
+                echo "LOCAL is $LOCAL"
+                writeFile file: "bar-cred2.txt", text: "${CRED2}"
+                writeFile file: "cred1.txt", text: "${CRED1}"
+                archive "**/*.txt"
+            }
+        }
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2016, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+pipeline {
+    agent {
+        label "some-label"
+    }
+    tools {
+        maven "apache-maven-3.0.1"
+    }
+    stages {
+        stage("foo") {
+            steps {
+                echo "foo M2_HOME: ${env.M2_HOME}"
+            }
+        }
+        stage("bar") {
+            tools {
+                maven "apache-maven-3.0.1"
+            }
+            steps {
+                echo "bar M2_HOME: ${env.M2_HOME}"
+            }
+        }
+        stage("baz") {
+            tools {
+                maven "apache-maven-3.0.1"
+            }
+            steps {
+                script {
+                    if (isUnix()) {
+                        sh 'mvn --version'
+                    } else {
+                        bat 'mvn --version'
+                    }
+                }
+            }
+        }
+    }
+}
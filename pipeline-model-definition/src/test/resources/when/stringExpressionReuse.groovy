@@ -0,0 +1,47 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2018, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+import org.jenkinsci.plugins.pipeline.modeldefinition.when.impl.ExpressionConditional
+
+def conditional = new ExpressionConditional('return env.EXPR_VALUE == "yes"')
+withEnv(['EXPR_VALUE=yes']) {
+    for (int i = 0; i < 3; i++) {
+        echo "Sequential ${i}: ${conditional.getScript(this).evaluate()}"
+    }
+}
+withEnv(['EXPR_VALUE=no']) {
+    echo "Sequential changed: ${conditional.getScript(this).evaluate()}"
+}
+
+parallel first: {
+    withEnv(['EXPR_VALUE=yes']) {
+        sleep 1
+        echo "Branch first: ${conditional.getScript(this).evaluate()}"
+    }
+}, second: {
+    withEnv(['EXPR_VALUE=no']) {
+        echo "Branch second: ${conditional.getScript(this).evaluate()}"
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2018, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+pipeline {
+    agent none
+    environment {
+        FOO = "bar"
+    }
+    stages {
+        stage("One") {
+            when {
+                allOf {
+                    environment name: "FOO", value: "bar"
+                    not {
+                        branch "production"
+                    }
+                    equals expected: 2, actual: 2
+                }
+            }
+            steps {
+                echo "Running One"
+            }
+        }
+        stage("Two") {
+            when {
+                allOf {
+                    environment name: "FOO", value: "baz"
+                    expression {
+                        echo "Evaluating expression in Two"
+                        return true
+                    }
+                }
+            }
+            steps {
+                echo "Running Two"
+            }
+        }
+        stage("Three") {
+            when {
+                anyOf {
+                    environment name: "FOO", value: "baz"
+                    expression {
+                        echo "Evaluating expression in Three"
+                        return true
+                    }
+                }
+            }
+            steps {
+                echo "Running Three"
+            }
+        }
+    }
+}
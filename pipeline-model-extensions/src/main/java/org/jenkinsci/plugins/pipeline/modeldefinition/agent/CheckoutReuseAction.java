@@ -0,0 +1,168 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2018, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.jenkinsci.plugins.pipeline.modeldefinition.agent;
+
+import hudson.model.InvisibleAction;
+import hudson.model.Run;
+import org.jenkinsci.plugins.workflow.cps.CpsFlowExecution;
+import org.jenkinsci.plugins.workflow.cps.CpsThread;
+import org.jenkinsci.plugins.workflow.flow.FlowExecutionOwner;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * Invisible action recording, for each node and workspace this build has checked out into, the environment variables
+ * returned by that checkout. Used by the {@code reuseCheckout} option to skip checking out again into the same place.
+ * Each checkout also gets a random token, written to {@link #MARKER_FILE} in the workspace's temporary directory, so
+ * that a later agent can tell whether someone else has checked out into that workspace since.
+ */
+public class CheckoutReuseAction extends InvisibleAction {
+    /**
+     * Name of the marker file holding the token of the last checkout, in the directory given by {@code pwd(tmp: true)}.
+     */
+    @Restricted(NoExternalUse.class)
+    public static final String MARKER_FILE = "declarative-checkout";
+
+    private final Map<String, Map<String, String>> checkouts = new HashMap<>();
+    private Map<String, String> tokens = new HashMap<>();
+
+    @CheckForNull
+    public synchronized Map<String, String> getCheckout(@Nonnull String nodeName, @Nonnull String workspace) {
+        Map<String, String> vars = checkouts.get(key(nodeName, workspace));
+        return vars != null ? new TreeMap<>(vars) : null;
+    }
+
+    public synchronized void addCheckout(@Nonnull String nodeName, @Nonnull String workspace,
+                                         @Nonnull Map<?, ?> checkoutVars) {
+        Map<String, String> vars = new TreeMap<>();
+        for (Map.Entry<?, ?> e : checkoutVars.entrySet()) {
+            if (e.getKey() != null && e.getValue() != null) {
+                vars.put(e.getKey().toString(), e.getValue().toString());
+            }
+        }
+        checkouts.put(key(nodeName, workspace), vars);
+    }
+
+    @CheckForNull
+    public synchronized String getToken(@Nonnull String nodeName, @Nonnull String workspace) {
+        return tokens != null ? tokens.get(key(nodeName, workspace)) : null;
+    }
+
+    @Nonnull
+    synchronized String newToken(@Nonnull String nodeName, @Nonnull String workspace) {
+        if (tokens == null) {
+            tokens = new HashMap<>();
+        }
+        String token = UUID.randomUUID().toString();
+        tokens.put(key(nodeName, workspace), token);
+        return token;
+    }
+
+    private static String key(@Nonnull String nodeName, @Nonnull String workspace) {
+        return nodeName + "\n" + workspace;
+    }
+
+    /**
+     * The environment variables from an earlier checkout by the current build into the given workspace on the given
+     * node, or null if there was none.
+     */
+    @Restricted(NoExternalUse.class)
+    @CheckForNull
+    public static Map<String, String> previousCheckout(@CheckForNull String nodeName, @CheckForNull String workspace) {
+        Run<?, ?> r = currentRun();
+        if (r == null || nodeName == null || workspace == null) {
+            return null;
+        }
+        CheckoutReuseAction action = r.getAction(CheckoutReuseAction.class);
+        return action != null ? action.getCheckout(nodeName, workspace) : null;
+    }
+
+    /**
+     * The token of the current build's latest checkout into the given workspace on the given node, or null if there
+     * was none.
+     */
+    @Restricted(NoExternalUse.class)
+    @CheckForNull
+    public static String previousToken(@CheckForNull String nodeName, @CheckForNull String workspace) {
+        Run<?, ?> r = currentRun();
+        if (r == null || nodeName == null || workspace == null) {
+            return null;
+        }
+        CheckoutReuseAction action = r.getAction(CheckoutReuseAction.class);
+        return action != null ? action.getToken(nodeName, workspace) : null;
+    }
+
+    /**
+     * Record a checkout by the current build into the given workspace on the given node.
+     *
+     * @return The token to write to {@link #MARKER_FILE}, or null if the checkout couldn't be recorded.
+     */
+    @Restricted(NoExternalUse.class)
+    @CheckForNull
+    public static String recordCheckout(@CheckForNull String nodeName, @CheckForNull String workspace,
+                                        @Nonnull Map<?, ?> checkoutVars) {
+        Run<?, ?> r = currentRun();
+        if (r == null || nodeName == null || workspace == null) {
+            return null;
+        }
+        CheckoutReuseAction action;
+        synchronized (r) {
+            action = r.getAction(CheckoutReuseAction.class);
+            if (action == null) {
+                action = new CheckoutReuseAction();
+                r.addAction(action);
+            }
+        }
+        action.addCheckout(nodeName, workspace, checkoutVars);
+        return action.newToken(nodeName, workspace);
+    }
+
+    @CheckForNull
+    static Run<?, ?> currentRun() {
+        try {
+            CpsThread t = CpsThread.current();
+            if (t != null) {
+                CpsFlowExecution e = t.getExecution();
+                if (e != null) {
+                    FlowExecutionOwner o = e.getOwner();
+                    if (o != null && o.getExecutable() instanceof Run) {
+                        return (Run<?, ?>) o.getExecutable();
+                    }
+                }
+            }
+            return null;
+        } catch (IOException i) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,229 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2018, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.jenkinsci.plugins.pipeline.modeldefinition.agent;
+
+import hudson.model.InvisibleAction;
+import hudson.model.Run;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.jenkinsci.plugins.workflow.steps.StepContext;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Invisible action coordinating the {@code checkoutOnce} option: the first agent to check out (per checkout
+ * subdirectory) does so and stashes the result, while every other agent waits for that stash and unstashes it.
+ *
+ * Only finished stashes are persisted with the build. A checkout in progress is not, so that if the controller restarts
+ * in the middle of it, the next agent to ask simply takes over. Agents waiting for a checkout in progress do so in the
+ * {@code awaitCheckoutStash} step, which is completed as soon as the checkout is stashed or has failed.
+ */
+@Restricted(NoExternalUse.class)
+public class CheckoutStashAction extends InvisibleAction {
+    /** The caller should check out and stash. */
+    public static final String LEAD = "LEAD";
+    /** Another agent is checking out - ask again later. */
+    public static final String WAIT = "WAIT";
+    /** The stash is available. */
+    public static final String READY = "READY";
+    /** The checkout or stash failed - the caller should check out normally. */
+    public static final String FAILED = "FAILED";
+
+    private final Map<String, Map<String, String>> stashed = new HashMap<>();
+    private final Set<String> failed = new HashSet<>();
+    private transient Set<String> pending;
+    private transient Map<String, List<StepContext>> waiting;
+
+    private synchronized String claimFor(@Nonnull String key) {
+        if (stashed.containsKey(key)) {
+            return READY;
+        } else if (failed.contains(key)) {
+            return FAILED;
+        }
+        if (pending == null) {
+            pending = new HashSet<>();
+        }
+        return pending.add(key) ? LEAD : WAIT;
+    }
+
+    @CheckForNull
+    private synchronized String claimOrAwaitFor(@Nonnull String key, @Nonnull StepContext context) {
+        String role = claimFor(key);
+        if (!role.equals(WAIT)) {
+            return role;
+        }
+        if (waiting == null) {
+            waiting = new HashMap<>();
+        }
+        List<StepContext> contexts = waiting.get(key);
+        if (contexts == null) {
+            contexts = new ArrayList<>();
+            waiting.put(key, contexts);
+        }
+        contexts.add(context);
+        return null;
+    }
+
+    private synchronized void stopAwaiting(@Nonnull String key, @Nonnull StepContext context) {
+        List<StepContext> contexts = waiting != null ? waiting.get(key) : null;
+        if (contexts != null) {
+            contexts.remove(context);
+        }
+    }
+
+    private void finish(@Nonnull String key, @CheckForNull Map<?, ?> checkoutVars) {
+        List<StepContext> contexts;
+        synchronized (this) {
+            if (pending != null) {
+                pending.remove(key);
+            }
+            if (checkoutVars != null) {
+                Map<String, String> vars = new TreeMap<>();
+                for (Map.Entry<?, ?> e : checkoutVars.entrySet()) {
+                    if (e.getKey() != null && e.getValue() != null) {
+                        vars.put(e.getKey().toString(), e.getValue().toString());
+                    }
+                }
+                stashed.put(key, vars);
+            } else {
+                failed.add(key);
+            }
+            contexts = waiting != null ? waiting.remove(key) : null;
+        }
+        if (contexts != null) {
+            // The key is no longer pending, so each of them is now told READY or FAILED.
+            for (StepContext context : contexts) {
+                context.onSuccess(claimFor(key));
+            }
+        }
+    }
+
+    /**
+     * Ask what the current agent should do for a checkout into the given subdirectory.
+     *
+     * @return One of {@link #LEAD}, {@link #WAIT}, {@link #READY} or {@link #FAILED}.
+     */
+    @Nonnull
+    public static String claim(@CheckForNull String subdirectory) {
+        CheckoutStashAction action = forCurrentRun();
+        return action != null ? action.claimFor(key(subdirectory)) : FAILED;
+    }
+
+    /**
+     * Like {@link #claim(String)}, but rather than answering {@link #WAIT}, completes the given step context with the
+     * answer once the checkout in progress is over.
+     *
+     * @return One of {@link #LEAD}, {@link #READY} or {@link #FAILED}, or null if the context will be completed later.
+     */
+    @CheckForNull
+    public static String claimOrAwait(@Nonnull Run<?, ?> run, @CheckForNull String subdirectory,
+                                      @Nonnull StepContext context) {
+        return forRun(run).claimOrAwaitFor(key(subdirectory), context);
+    }
+
+    /**
+     * Stop waiting for the checkout on behalf of the given step context.
+     */
+    public static void stopAwaiting(@Nonnull Run<?, ?> run, @CheckForNull String subdirectory,
+                                    @Nonnull StepContext context) {
+        forRun(run).stopAwaiting(key(subdirectory), context);
+    }
+
+    /**
+     * Record that the checkout has been stashed, along with the variables returned by the checkout.
+     */
+    public static void ready(@CheckForNull String subdirectory, @Nonnull Map<?, ?> checkoutVars) {
+        CheckoutStashAction action = forCurrentRun();
+        if (action != null) {
+            action.finish(key(subdirectory), checkoutVars);
+        }
+    }
+
+    /**
+     * Record that the checkout could not be stashed, so that waiting agents check out themselves.
+     */
+    public static void failed(@CheckForNull String subdirectory) {
+        CheckoutStashAction action = forCurrentRun();
+        if (action != null) {
+            action.finish(key(subdirectory), null);
+        }
+    }
+
+    /**
+     * The variables returned by the stashed checkout.
+     */
+    @Nonnull
+    public static Map<String, String> checkoutVars(@CheckForNull String subdirectory) {
+        CheckoutStashAction action = forCurrentRun();
+        if (action != null) {
+            synchronized (action) {
+                Map<String, String> vars = action.stashed.get(key(subdirectory));
+                if (vars != null) {
+                    return new TreeMap<>(vars);
+                }
+            }
+        }
+        return new TreeMap<>();
+    }
+
+    /**
+     * The name of the stash holding the checkout for the given subdirectory.
+     */
+    @Nonnull
+    public static String stashName(@CheckForNull String subdirectory) {
+        return "declarative-checkout-" + DigestUtils.sha1Hex(key(subdirectory)).substring(0, 8);
+    }
+
+    private static String key(@CheckForNull String subdirectory) {
+        return subdirectory != null ? subdirectory : "";
+    }
+
+    @CheckForNull
+    private static CheckoutStashAction forCurrentRun() {
+        Run<?, ?> r = CheckoutReuseAction.currentRun();
+        return r != null ? forRun(r) : null;
+    }
+
+    @Nonnull
+    private static CheckoutStashAction forRun(@Nonnull Run<?, ?> r) {
+        synchronized (r) {
+            CheckoutStashAction action = r.getAction(CheckoutStashAction.class);
+            if (action == null) {
+                action = new CheckoutStashAction();
+                r.addAction(action);
+            }
+            return action;
+        }
+    }
+}
@@ -41,6 +41,9 @@ import javax.annotation.Nonnull;
 public abstract class DeclarativeAgent<A extends DeclarativeAgent<A>> extends WithScriptDescribable<A> implements ExtensionPoint {
     protected boolean inStage;
     protected boolean doCheckout;
+    protected boolean reuseCheckout;
+    protected boolean checkoutOnce;
+    protected boolean cleanBeforeUnstash;
     protected String subdirectory;
 
     @Override
@@ -70,6 +73,30 @@ public abstract class DeclarativeAgent<A extends DeclarativeAgent<A>> extends Wi
         return doCheckout;
     }
 
+    public void setReuseCheckout(boolean reuseCheckout) {
+        this.reuseCheckout = reuseCheckout;
+    }
+
+    public boolean isReuseCheckout() {
+        return reuseCheckout;
+    }
+
+    public void setCheckoutOnce(boolean checkoutOnce) {
+        this.checkoutOnce = checkoutOnce;
+    }
+
+    public boolean isCheckoutOnce() {
+        return checkoutOnce;
+    }
+
+    public void setCleanBeforeUnstash(boolean cleanBeforeUnstash) {
+        this.cleanBeforeUnstash = cleanBeforeUnstash;
+    }
+
+    public boolean isCleanBeforeUnstash() {
+        return cleanBeforeUnstash;
+    }
+
     public void setSubdirectory(String subdirectory) {
         this.subdirectory = subdirectory;
     }
@@ -81,6 +108,9 @@ public abstract class DeclarativeAgent<A extends DeclarativeAgent<A>> extends Wi
     public void copyFlags(@Nonnull DeclarativeAgent a) {
         setInStage(a.isInStage());
         setDoCheckout(a.isDoCheckout());
+        setReuseCheckout(a.isReuseCheckout());
+        setCheckoutOnce(a.isCheckoutOnce());
+        setCleanBeforeUnstash(a.isCleanBeforeUnstash());
         setSubdirectory(a.getSubdirectory());
     }
 
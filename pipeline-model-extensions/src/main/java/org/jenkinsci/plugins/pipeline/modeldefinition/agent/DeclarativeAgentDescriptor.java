@@ -72,7 +72,7 @@ public abstract class DeclarativeAgentDescriptor<A extends DeclarativeAgent<A>>
 
         for (DeclarativeAgentDescriptor d : all()) {
             for (String s : SymbolLookup.getSymbolValue(d)) {
-                models.put(s, new DescribableModel<>(d.clazz));
+                models.put(s, d.getDescribableModel());
             }
         }
 
@@ -150,8 +150,9 @@ public abstract class DeclarativeAgentDescriptor<A extends DeclarativeAgent<A>>
      */
     public static @Nonnull DeclarativeAgent<?> instanceForDescriptor(@Nonnull DeclarativeAgentDescriptor<?> descriptor,
                                                                    Map<String,Object> arguments) throws Exception {
-        if (zeroArgModels().keySet().contains(descriptor.getName()) ||
-                (noRequiredArgsModels().keySet().contains(descriptor.getName()) &&
+        DescribableModel<?> model = descriptor.getDescribableModel();
+        if (model.getParameters().isEmpty() ||
+                (model.getFirstRequiredParameter() == null &&
                         arguments.containsKey(UninstantiatedDescribable.ANONYMOUS_KEY) &&
                         arguments.size() == 1)) {
             return descriptor.newInstance();
@@ -26,6 +26,7 @@ package org.jenkinsci.plugins.pipeline.modeldefinition.model;
 import hudson.ExtensionComponent;
 import hudson.ExtensionList;
 import hudson.ExtensionPoint;
+import hudson.ExtensionListListener;
 import hudson.model.Result;
 import org.jenkinsci.plugins.structs.SymbolLookup;
 import org.jenkinsci.plugins.workflow.cps.CpsFlowExecution;
@@ -39,6 +40,7 @@ import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -93,36 +95,88 @@ public abstract class BuildCondition implements Serializable, ExtensionPoint {
         return ExtensionList.lookup(BuildCondition.class);
     }
 
+    /**
+     * The result of the last completed build before the given one. Looked up at most once per build.
+     *
+     * @param r The current build.
+     * @return The result of the previous completed build, or null if there is no previous completed build.
+     */
+    @CheckForNull
+    protected final Result getPreviousCompletedBuildResult(@Nonnull WorkflowRun r) {
+        return BuildConditionSnapshot.forRun(r).getPreviousCompletedBuildResult(r);
+    }
+
     public static List<String> getOrderedConditionNames() {
-        List<String> orderedConditions = new ArrayList<>();
+        return new ArrayList<>(getConditionTable().conditions.keySet());
+    }
 
-        List<ExtensionComponent<BuildCondition>> extensionComponents = new ArrayList<>(all().getComponents());
-        Collections.sort(extensionComponents);
+    public static Map<String, BuildCondition> getConditionMethods() {
+        return new HashMap<>(getConditionTable().conditions);
+    }
 
-        for (ExtensionComponent<BuildCondition> extensionComponent: extensionComponents) {
-            BuildCondition b = extensionComponent.getInstance();
-            Set<String> symbolValues = SymbolLookup.getSymbolValue(b);
+    /**
+     * Looks up a single registered {@link BuildCondition} by its symbol, without copying the full condition map.
+     *
+     * @param name The symbol for the condition.
+     * @return The condition, or null if there is no condition registered with that symbol.
+     */
+    @CheckForNull
+    public static BuildCondition getConditionMethod(@Nonnull String name) {
+        return getConditionTable().conditions.get(name);
+    }
 
-            if (!symbolValues.isEmpty()) {
-                orderedConditions.add(symbolValues.iterator().next());
+    @Nonnull
+    private static ConditionTable getConditionTable() {
+        ExtensionList<BuildCondition> all = all();
+        ConditionTable table = conditionTable;
+        if (table == null || table.source != all) {
+            synchronized (BuildCondition.class) {
+                table = conditionTable;
+                if (table == null || table.source != all) {
+                    if (listenedTo != all) {
+                        listenedTo = all;
+                        all.addListener(new ExtensionListListener() {
+                            @Override
+                            public void onChange() {
+                                conditionTable = null;
+                            }
+                        });
+                    }
+                    table = new ConditionTable(all);
+                    conditionTable = table;
+                }
             }
         }
-
-        return orderedConditions;
+        return table;
     }
 
-    public static Map<String, BuildCondition> getConditionMethods() {
-        Map<String,BuildCondition> conditions = new HashMap<>();
+    /**
+     * The registered conditions keyed by symbol, in ordinal order. Computing this means sorting the extension
+     * components and doing a symbol lookup for each, so it's kept around until the extension list changes.
+     */
+    private static volatile ConditionTable conditionTable;
+
+    private static ExtensionList<BuildCondition> listenedTo;
+
+    private static final class ConditionTable {
+        private final ExtensionList<BuildCondition> source;
+        private final Map<String, BuildCondition> conditions = new LinkedHashMap<>();
+
+        ConditionTable(@Nonnull ExtensionList<BuildCondition> source) {
+            this.source = source;
 
-        for (BuildCondition b: all()) {
+            List<ExtensionComponent<BuildCondition>> extensionComponents = new ArrayList<>(source.getComponents());
+            Collections.sort(extensionComponents);
 
-            Set<String> symbolValues = SymbolLookup.getSymbolValue(b);
+            for (ExtensionComponent<BuildCondition> extensionComponent: extensionComponents) {
+                BuildCondition b = extensionComponent.getInstance();
+                Set<String> symbolValues = SymbolLookup.getSymbolValue(b);
 
-            if (!symbolValues.isEmpty()) {
-                conditions.put(symbolValues.iterator().next(), b);
+                if (!symbolValues.isEmpty()) {
+                    conditions.put(symbolValues.iterator().next(), b);
+                }
             }
         }
-        return conditions;
     }
 
     private static final long serialVersionUID = 1L;
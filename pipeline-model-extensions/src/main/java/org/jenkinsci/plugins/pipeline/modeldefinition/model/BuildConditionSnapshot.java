@@ -0,0 +1,133 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2018, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.pipeline.modeldefinition.model;
+
+import hudson.model.Result;
+import org.jenkinsci.plugins.workflow.cps.CpsFlowExecution;
+import org.jenkinsci.plugins.workflow.flow.FlowExecution;
+import org.jenkinsci.plugins.workflow.job.WorkflowRun;
+import org.jenkinsci.plugins.workflow.support.steps.build.RunWrapper;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Per-build memo of {@link BuildCondition} outcomes. Every post block is checked once to see if any of its conditions
+ * are satisfied and then once more per condition while running it, so each outcome is kept until the build or
+ * execution result changes. The previous completed build's result is looked up only once per build, through the
+ * {@link CompletedBuildResultIndex}.
+ *
+ * @author Andrew Bayer
+ */
+@Restricted(NoExternalUse.class)
+public final class BuildConditionSnapshot {
+    private static final Map<WorkflowRun, BuildConditionSnapshot> SNAPSHOTS = new WeakHashMap<>();
+
+    private final Map<String, Boolean> outcomes = new HashMap<>();
+    private Result runResult;
+    private Result executionResult;
+
+    private boolean previousResolved;
+    private Result previousResult;
+
+    private BuildConditionSnapshot() {
+    }
+
+    /**
+     * Gets the snapshot for the given build, creating it if needed.
+     *
+     * @param r The build.
+     * @return The snapshot for that build.
+     */
+    @Nonnull
+    public static BuildConditionSnapshot forRun(@Nonnull WorkflowRun r) {
+        synchronized (SNAPSHOTS) {
+            BuildConditionSnapshot snapshot = SNAPSHOTS.get(r);
+            if (snapshot == null) {
+                snapshot = new BuildConditionSnapshot();
+                SNAPSHOTS.put(r, snapshot);
+            }
+            return snapshot;
+        }
+    }
+
+    /**
+     * Checks whether the named condition is met for the build wrapped by the given {@link RunWrapper}, reusing the
+     * outcome from an earlier check if the build's result hasn't changed since.
+     *
+     * @param conditionName The symbol for the condition.
+     * @param condition The condition itself.
+     * @param runWrapperObj The {@link RunWrapper} for the build.
+     * @return True if the condition is met.
+     */
+    public static boolean meetsCondition(@Nonnull String conditionName, @Nonnull BuildCondition condition,
+                                         @Nonnull Object runWrapperObj) {
+        WorkflowRun run = (WorkflowRun) ((RunWrapper) runWrapperObj).getRawBuild();
+        if (run == null) {
+            return condition.meetsCondition(runWrapperObj);
+        }
+        return forRun(run).meetsCondition(conditionName, condition, run, runWrapperObj);
+    }
+
+    private synchronized boolean meetsCondition(@Nonnull String conditionName, @Nonnull BuildCondition condition,
+                                                @Nonnull WorkflowRun run, @Nonnull Object runWrapperObj) {
+        Result currentRunResult = run.getResult();
+        Result currentExecutionResult = executionResultFor(run);
+        if (currentRunResult != runResult || currentExecutionResult != executionResult) {
+            outcomes.clear();
+            runResult = currentRunResult;
+            executionResult = currentExecutionResult;
+        }
+
+        Boolean outcome = outcomes.get(conditionName);
+        if (outcome == null) {
+            outcome = condition.meetsCondition(runWrapperObj);
+            outcomes.put(conditionName, outcome);
+        }
+        return outcome;
+    }
+
+    @CheckForNull
+    synchronized Result getPreviousCompletedBuildResult(@Nonnull WorkflowRun r) {
+        if (!previousResolved) {
+            previousResult = CompletedBuildResultIndex.get().getPreviousCompletedBuildResult(r);
+            previousResolved = true;
+        }
+        return previousResult;
+    }
+
+    @CheckForNull
+    private static Result executionResultFor(@Nonnull WorkflowRun r) {
+        FlowExecution execution = r.getExecution();
+        if (execution instanceof CpsFlowExecution) {
+            return ((CpsFlowExecution) execution).getResult();
+        }
+        return null;
+    }
+}
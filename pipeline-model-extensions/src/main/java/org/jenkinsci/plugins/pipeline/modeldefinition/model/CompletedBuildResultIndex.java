@@ -0,0 +1,193 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2018, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.pipeline.modeldefinition.model;
+
+import hudson.Extension;
+import hudson.ExtensionList;
+import hudson.model.Result;
+import hudson.model.TaskListener;
+import hudson.model.listeners.RunListener;
+import org.jenkinsci.plugins.workflow.job.WorkflowJob;
+import org.jenkinsci.plugins.workflow.job.WorkflowRun;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.WeakHashMap;
+
+/**
+ * Index of the results of recently completed builds, per job, so that {@link BuildCondition}s comparing against the
+ * previous completed build don't need to load that build from disk. The index for a job is created the first time
+ * it's queried, seeded with a single {@link WorkflowRun#getPreviousCompletedBuild()} lookup, and then kept up to date
+ * as builds of that job start, complete and are deleted.
+ *
+ * @author Andrew Bayer
+ */
+@Extension
+@Restricted(NoExternalUse.class)
+public class CompletedBuildResultIndex extends RunListener<WorkflowRun> {
+    private static final int MAX_ENTRIES = Integer.getInteger(CompletedBuildResultIndex.class.getName() + ".maxEntries", 100);
+
+    private final transient Map<WorkflowJob, JobIndex> indexes = new WeakHashMap<>();
+
+    public static CompletedBuildResultIndex get() {
+        return ExtensionList.lookup(CompletedBuildResultIndex.class).get(0);
+    }
+
+    /**
+     * Gets the result of the last completed build of the same job before the given build, falling back to
+     * {@link WorkflowRun#getPreviousCompletedBuild()} only if the index can't answer.
+     *
+     * @param r The current build.
+     * @return The result of the previous completed build, or null if there is no previous completed build.
+     */
+    @CheckForNull
+    public Result getPreviousCompletedBuildResult(@Nonnull WorkflowRun r) {
+        WorkflowJob job = r.getParent();
+        synchronized (this) {
+            JobIndex index = indexes.get(job);
+            if (index != null) {
+                int n = r.getNumber() - 1;
+                while (n > 0) {
+                    Result result = index.completed.get(n);
+                    if (result != null) {
+                        return result;
+                    } else if (n <= index.floor) {
+                        Map.Entry<Integer, Result> lower = index.completed.lowerEntry(n);
+                        return lower != null ? lower.getValue() : null;
+                    } else if (!index.notCompleted.contains(n)) {
+                        // We don't know anything about this build, so go the slow way.
+                        break;
+                    }
+                    n--;
+                }
+                if (n <= 0) {
+                    return null;
+                }
+            } else {
+                // Start listening for this job before the slow lookup so nothing completing meanwhile gets missed.
+                indexes.put(job, new JobIndex());
+            }
+        }
+
+        WorkflowRun prev = r.getPreviousCompletedBuild();
+
+        synchronized (this) {
+            JobIndex index = indexes.get(job);
+            if (index == null) {
+                index = new JobIndex();
+                indexes.put(job, index);
+            }
+            int lowestSkipped;
+            if (prev != null) {
+                index.record(prev.getNumber(), prev.getResult());
+                lowestSkipped = prev.getNumber() + 1;
+            } else {
+                index.floor = Math.max(index.floor, r.getNumber() - 1);
+                lowestSkipped = r.getNumber();
+            }
+            // Anything between the previous completed build and this one was either still running or doesn't exist.
+            for (int n = lowestSkipped; n < r.getNumber(); n++) {
+                if (!index.completed.containsKey(n)) {
+                    index.notCompleted.add(n);
+                }
+            }
+            index.trim();
+        }
+
+        return prev != null ? prev.getResult() : null;
+    }
+
+    @Override
+    public void onStarted(WorkflowRun r, TaskListener listener) {
+        synchronized (this) {
+            JobIndex index = indexes.get(r.getParent());
+            if (index != null) {
+                index.notCompleted.add(r.getNumber());
+            }
+        }
+    }
+
+    @Override
+    public void onCompleted(WorkflowRun r, @Nonnull TaskListener listener) {
+        synchronized (this) {
+            JobIndex index = indexes.get(r.getParent());
+            if (index != null) {
+                index.record(r.getNumber(), r.getResult());
+                index.trim();
+            }
+        }
+    }
+
+    @Override
+    public void onDeleted(WorkflowRun r) {
+        synchronized (this) {
+            JobIndex index = indexes.get(r.getParent());
+            if (index != null) {
+                index.completed.remove(r.getNumber());
+                index.notCompleted.add(r.getNumber());
+            }
+        }
+    }
+
+    private static final class JobIndex {
+        /**
+         * Build numbers to results for builds we know have completed.
+         */
+        private final TreeMap<Integer, Result> completed = new TreeMap<>();
+        /**
+         * Build numbers we know are still running, have been deleted, or were never used.
+         */
+        private final Set<Integer> notCompleted = new HashSet<>();
+        /**
+         * Any build number at or below this which isn't in {@link #completed} is known not to have completed.
+         */
+        private int floor = 0;
+
+        private void record(int number, @CheckForNull Result result) {
+            if (result != null) {
+                completed.put(number, result);
+                notCompleted.remove(number);
+            }
+        }
+
+        private void trim() {
+            while (completed.size() > MAX_ENTRIES) {
+                if (completed.pollFirstEntry().getKey() <= floor) {
+                    // Anything below the dropped entries is unknown again.
+                    floor = 0;
+                }
+            }
+            if (!completed.isEmpty()) {
+                int lowest = completed.firstKey();
+                notCompleted.removeIf(n -> n < lowest);
+            }
+        }
+    }
+}
@@ -38,10 +38,12 @@ import javax.annotation.CheckForNull;
 import javax.annotation.Nonnull;
 import java.io.Serializable;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.WeakHashMap;
 
 /**
  * Simplified {@link org.jenkinsci.plugins.credentialsbinding.Binding} handler for use in {@code environment {} }
@@ -122,6 +124,38 @@ public abstract class CredentialsBindingHandler<C extends StandardCredentials> i
         }
     }
 
+    /**
+     * Handlers already found by {@link #forIdInRun(String, Run)}, by run and credentials ID.
+     */
+    private static final Map<Run<?,?>, Map<String, CredentialsBindingHandler>> HANDLERS_FOR_RUN = new WeakHashMap<>();
+
+    /**
+     * Like {@link #forId(String, Run)}, but only looks up each credentials ID once per run, since looking credentials
+     * up may mean searching through a number of folder-scoped stores.
+     */
+    @Nonnull
+    public static CredentialsBindingHandler forIdInRun(String id, Run context) throws CredentialNotFoundException {
+        if (context == null || id == null) {
+            return forId(id, context);
+        }
+        synchronized (HANDLERS_FOR_RUN) {
+            Map<String, CredentialsBindingHandler> handlers = HANDLERS_FOR_RUN.get(context);
+            if (handlers != null && handlers.containsKey(id)) {
+                return handlers.get(id);
+            }
+        }
+        CredentialsBindingHandler handler = forId(id, context);
+        synchronized (HANDLERS_FOR_RUN) {
+            Map<String, CredentialsBindingHandler> handlers = HANDLERS_FOR_RUN.get(context);
+            if (handlers == null) {
+                handlers = new HashMap<>();
+                HANDLERS_FOR_RUN.put(context, handlers);
+            }
+            handlers.put(id, handler);
+        }
+        return handler;
+    }
+
     public static class EnvVarResolver implements Serializable {
         private static final long serialVersionUID = 1L;
 
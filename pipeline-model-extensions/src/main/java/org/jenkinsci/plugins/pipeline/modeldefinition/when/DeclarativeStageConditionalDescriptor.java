@@ -100,7 +100,7 @@ public abstract class DeclarativeStageConditionalDescriptor<S extends Declarativ
 
         for (DeclarativeStageConditionalDescriptor d : all()) {
             for (String s : SymbolLookup.getSymbolValue(d)) {
-                models.put(s, new DescribableModel<>(d.clazz));
+                models.put(s, d.getDescribableModel());
             }
         }
 
@@ -24,8 +24,17 @@
 
 package org.jenkinsci.plugins.pipeline.modeldefinition.when;
 
+import hudson.EnvVars;
 import org.jenkinsci.plugins.pipeline.modeldefinition.withscript.WithScriptScript;
 import org.jenkinsci.plugins.workflow.cps.CpsScript;
+import org.jenkinsci.plugins.workflow.cps.CpsThread;
+import org.jenkinsci.plugins.workflow.cps.EnvActionImpl;
+import org.jenkinsci.plugins.workflow.steps.EnvironmentExpander;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.util.List;
 
 public abstract class DeclarativeStageConditionalScript<S extends DeclarativeStageConditional<S>>
         extends WithScriptScript<S> {
@@ -35,4 +44,78 @@ public abstract class DeclarativeStageConditionalScript<S extends DeclarativeSta
     }
 
     public abstract boolean evaluate();
+
+    /**
+     * Whether the conditional is a {@link PureStageConditional} which can currently be decided without its script.
+     */
+    public static boolean isPure(@CheckForNull DeclarativeStageConditional<?> conditional) {
+        return conditional instanceof PureStageConditional && ((PureStageConditional) conditional).isPure();
+    }
+
+    /**
+     * Evaluates a conditional for which {@link #isPure(DeclarativeStageConditional)} is true directly against the
+     * build's current environment, without loading its script.
+     *
+     * @param conditional A pure conditional.
+     * @param script The running script.
+     * @return The result of the conditional.
+     * @throws IOException if the environment cannot be computed.
+     * @throws InterruptedException if the environment cannot be computed.
+     */
+    public static boolean evaluatePure(@Nonnull DeclarativeStageConditional<?> conditional, @Nonnull CpsScript script)
+            throws IOException, InterruptedException {
+        return ((PureStageConditional) conditional).evaluatePure(getEffectiveEnvironment(script));
+    }
+
+    /**
+     * Evaluates a list of conditionals, all of which must be {@link #isPure(DeclarativeStageConditional)}, stopping at
+     * the first one that does not match. The environment is only computed once.
+     *
+     * @param conditionals The pure conditionals.
+     * @param script The running script.
+     * @return True if every conditional matches.
+     * @throws IOException if the environment cannot be computed.
+     * @throws InterruptedException if the environment cannot be computed.
+     */
+    public static boolean evaluateAllPure(@Nonnull List<? extends DeclarativeStageConditional<?>> conditionals,
+                                          @Nonnull CpsScript script) throws IOException, InterruptedException {
+        if (conditionals.isEmpty()) {
+            return true;
+        }
+        EnvVars env = getEffectiveEnvironment(script);
+        for (DeclarativeStageConditional<?> c : conditionals) {
+            if (!((PureStageConditional) c).evaluatePure(env)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Whether every conditional in the list is {@link #isPure(DeclarativeStageConditional)}.
+     */
+    public static boolean allPure(@Nonnull List<? extends DeclarativeStageConditional<?>> conditionals) {
+        for (DeclarativeStageConditional<?> c : conditionals) {
+            if (!isPure(c)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The same environment {@code env.SOME_VAR} sees from within the script, including any {@code withEnv} blocks
+     * currently in effect.
+     */
+    @Nonnull
+    private static EnvVars getEffectiveEnvironment(@Nonnull CpsScript script) throws IOException, InterruptedException {
+        Object envAction = script.getProperty("env");
+        EnvVars original = envAction instanceof EnvActionImpl ? ((EnvActionImpl) envAction).getEnvironment() : new EnvVars();
+        CpsThread t = CpsThread.current();
+        if (t == null) {
+            return original;
+        }
+        return EnvironmentExpander.getEffectiveEnvironment(original, t.getContextVariable(EnvVars.class),
+                t.getContextVariable(EnvironmentExpander.class));
+    }
 }
@@ -0,0 +1,54 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2018, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+
+package org.jenkinsci.plugins.pipeline.modeldefinition.when;
+
+import hudson.EnvVars;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Implemented by a {@link DeclarativeStageConditional} which can be decided from the build's environment alone, without
+ * loading and running its {@link DeclarativeStageConditionalScript}. Only conditions which never call steps or evaluate
+ * user code should implement this.
+ */
+public interface PureStageConditional {
+    /**
+     * Whether this particular instance can be decided by {@link #evaluatePure(EnvVars)}, for conditions which only
+     * sometimes can be, such as those wrapping other conditions.
+     *
+     * @return true by default.
+     */
+    default boolean isPure() {
+        return true;
+    }
+
+    /**
+     * Decides this condition from the build's current environment. Only called if {@link #isPure()} returns true.
+     *
+     * @param env The effective environment of the build at the point the condition is evaluated.
+     * @return True if the stage should run.
+     */
+    boolean evaluatePure(@Nonnull EnvVars env);
+}
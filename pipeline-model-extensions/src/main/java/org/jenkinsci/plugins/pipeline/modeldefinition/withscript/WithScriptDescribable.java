@@ -31,9 +31,16 @@ import org.apache.commons.lang.reflect.ConstructorUtils;
 import org.jenkinsci.plugins.workflow.cps.CpsScript;
 import org.jenkinsci.plugins.workflow.cps.CpsThread;
 
+import javax.annotation.Nonnull;
 import java.io.Serializable;
+import java.lang.ref.WeakReference;
 import java.lang.reflect.Constructor;
 import java.net.URL;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Implementations for {@link WithScriptDescriptor} - pluggable script backends for Declarative Pipelines.
@@ -43,38 +50,96 @@ import java.net.URL;
 public abstract class WithScriptDescribable<T extends WithScriptDescribable<T>> extends AbstractDescribableImpl<T> implements Serializable {
 
     /**
-     * ONLY TO BE RUN FROM WITHIN A CPS THREAD. Parses the script source and loads it.
-     * TODO: Decide if we want to cache the resulting objects or just *shrug* and re-parse them every time.
+     * Script classes already resolved for each describable class, per script class loader. Both the loaders and the
+     * script classes (which are usually defined by those very loaders) are only weakly referenced, so that a finished
+     * build's loader can still be collected. A script class stays alive for as long as its loader does.
+     */
+    private static final Map<ClassLoader, Map<Class<?>, WeakReference<Class<?>>>> SCRIPT_CLASSES = new WeakHashMap<>();
+
+    /**
+     * Matching constructors for each script class, by describable class. Stored on the script class itself, so they
+     * go away along with it.
+     */
+    private static final ClassValue<ConcurrentMap<Class<?>, Constructor<?>>> SCRIPT_CONSTRUCTORS =
+            new ClassValue<ConcurrentMap<Class<?>, Constructor<?>>>() {
+                @Override
+                protected ConcurrentMap<Class<?>, Constructor<?>> computeValue(Class<?> type) {
+                    return new ConcurrentHashMap<>();
+                }
+            };
+
+    /**
+     * ONLY TO BE RUN FROM WITHIN A CPS THREAD. Loads the script class, if it hasn't already been loaded for this
+     * script's class loader, and instantiates it.
      *
      * @return The script object for this.
      * @throws Exception if the script source cannot be loaded or we're called from outside a CpsThread.
      */
-    @SuppressWarnings("unchecked")
     public WithScriptScript getScript(CpsScript cpsScript) throws Exception {
         CpsThread c = CpsThread.current();
         if (c == null)
             throw new IllegalStateException("Expected to be called from CpsThread");
 
-        Class clz;
+        Class<?> clz = getScriptClass(cpsScript.getClass().getClassLoader());
+        return (WithScriptScript) getScriptConstructor(clz).newInstance(cpsScript, this);
+    }
+
+    @Nonnull
+    private Class<?> getScriptClass(@Nonnull ClassLoader loader) throws Exception {
+        synchronized (SCRIPT_CLASSES) {
+            Map<Class<?>, WeakReference<Class<?>>> classes = SCRIPT_CLASSES.get(loader);
+            if (classes != null) {
+                WeakReference<Class<?>> ref = classes.get(getClass());
+                Class<?> clz = ref != null ? ref.get() : null;
+                if (clz != null) {
+                    return clz;
+                }
+            }
+        }
+
+        Class<?> clz = loadScriptClass(loader);
+
+        synchronized (SCRIPT_CLASSES) {
+            Map<Class<?>, WeakReference<Class<?>>> classes = SCRIPT_CLASSES.get(loader);
+            if (classes == null) {
+                classes = new HashMap<>();
+                SCRIPT_CLASSES.put(loader, classes);
+            }
+            classes.put(getClass(), new WeakReference<Class<?>>(clz));
+        }
+        return clz;
+    }
+
+    @Nonnull
+    private Class<?> loadScriptClass(@Nonnull ClassLoader loader) throws Exception {
         try {
-            clz = cpsScript.getClass().getClassLoader().loadClass(getDescriptor().getScriptClass());
+            return loader.loadClass(getDescriptor().getScriptClass());
         } catch (ClassNotFoundException e) {
             // This is special casing to deal with PluginFirstClassLoaders, which don't have a functional findResource method.
             // That results in GroovyClassLoader.loadClass failing to find resources to parse and load.
             // TODO delete JENKINS-44898 workaround as of Jenkins 2.66
             URL res = getDescriptor().getClass().getClassLoader().getResource(getDescriptor().getScriptClass().replace('.', '/') + ".groovy");
             if (res != null) {
-                clz = ((GroovyClassLoader) cpsScript.getClass().getClassLoader()).parseClass(new GroovyCodeSource(res));
+                return ((GroovyClassLoader) loader).parseClass(new GroovyCodeSource(res));
             } else {
                 throw e;
             }
         }
-        final Constructor constructor = ConstructorUtils.getMatchingAccessibleConstructor(clz, new Class[]{CpsScript.class, this.getClass()});
+    }
+
+    @Nonnull
+    private Constructor<?> getScriptConstructor(@Nonnull Class<?> clz) throws NoSuchMethodException {
+        ConcurrentMap<Class<?>, Constructor<?>> constructors = SCRIPT_CONSTRUCTORS.get(clz);
+        Constructor<?> constructor = constructors.get(getClass());
         if (constructor == null) {
-            //Restoring same behaviour as Class.getConstructor
-            throw new NoSuchMethodException(clz.getName() + ".<init>("+CpsScript.class.getName()+","+this.getClass().getName()+")");
+            constructor = ConstructorUtils.getMatchingAccessibleConstructor(clz, new Class[]{CpsScript.class, this.getClass()});
+            if (constructor == null) {
+                //Restoring same behaviour as Class.getConstructor
+                throw new NoSuchMethodException(clz.getName() + ".<init>("+CpsScript.class.getName()+","+this.getClass().getName()+")");
+            }
+            constructors.putIfAbsent(getClass(), constructor);
         }
-        return (WithScriptScript) constructor.newInstance(cpsScript, this);
+        return constructor;
     }
 
     @Override
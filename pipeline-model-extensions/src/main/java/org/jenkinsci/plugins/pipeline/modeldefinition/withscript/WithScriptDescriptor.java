@@ -25,6 +25,7 @@
 package org.jenkinsci.plugins.pipeline.modeldefinition.withscript;
 
 import hudson.model.Descriptor;
+import org.jenkinsci.plugins.pipeline.modeldefinition.DescriptorLookupCache;
 import org.jenkinsci.plugins.structs.SymbolLookup;
 import org.jenkinsci.plugins.structs.describable.DescribableModel;
 
@@ -63,6 +64,16 @@ public abstract class WithScriptDescriptor<T extends WithScriptDescribable<T>> e
         return clazz.getName() + "Script";
     }
 
+    /**
+     * The {@link DescribableModel} for {@link #clazz}, shared through {@link DescriptorLookupCache} so that it is
+     * only built once.
+     *
+     * @return The model.
+     */
+    public @Nonnull DescribableModel<? extends T> getDescribableModel() {
+        return DescriptorLookupCache.getPublicCache().modelForClass(clazz);
+    }
+
     /**
      * Creates an instance of the corresponding {@link WithScriptDescribable} from the given arguments.
      *
@@ -71,7 +82,7 @@ public abstract class WithScriptDescriptor<T extends WithScriptDescribable<T>> e
      * @throws Exception if there are issues instantiating
      */
     public T newInstance(Map<String,Object> arguments) throws Exception {
-        return new DescribableModel<>(clazz).instantiate(arguments);
+        return getDescribableModel().instantiate(arguments);
     }
 
     /**
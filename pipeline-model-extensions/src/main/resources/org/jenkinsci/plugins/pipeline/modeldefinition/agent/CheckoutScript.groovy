@@ -70,15 +70,101 @@ class CheckoutScript implements Serializable {
 
     private static Map performCheckout(CpsScript script, DeclarativeAgent agent) {
         def checkoutMap = [:]
+        String nodeName = null
+        String workspace = null
+        if (agent.isReuseCheckout()) {
+            nodeName = script.getProperty("env").getProperty("NODE_NAME")
+            workspace = script.pwd()
+            Map<String,String> previous = CheckoutReuseAction.previousCheckout(nodeName, workspace)
+            if (previous != null) {
+                if (isCheckoutUnchanged(script, nodeName, workspace, previous)) {
+                    script.echo "Reusing earlier checkout of this build in ${workspace}"
+                    return previous
+                }
+                script.echo "Earlier checkout of this build in ${workspace} has changed since, checking out again"
+            }
+        }
         if (!agent.inStage) {
             script.stage(SyntheticStageNames.checkout()) {
-                checkoutMap.putAll(script.checkout(script.scm) ?: [:])
+                checkoutMap.putAll(checkoutOrUnstash(script, agent))
             }
         } else {
             // No stage when we're in a nested stage already
-            checkoutMap.putAll(script.checkout(script.scm) ?: [:])
+            checkoutMap.putAll(checkoutOrUnstash(script, agent))
+        }
+        if (agent.isReuseCheckout()) {
+            String token = CheckoutReuseAction.recordCheckout(nodeName, workspace, checkoutMap)
+            if (token != null) {
+                script.writeFile(file: markerFile(script), text: token)
+            }
         }
 
         return checkoutMap
     }
+
+    /**
+     * Check that nothing else has checked out into the workspace since this build's earlier checkout - the marker file
+     * must still hold that checkout's token, and for Git, HEAD must still be the commit that was checked out.
+     */
+    private static boolean isCheckoutUnchanged(CpsScript script, String nodeName, String workspace,
+                                               Map<String,String> previous) {
+        String token = CheckoutReuseAction.previousToken(nodeName, workspace)
+        String marker = markerFile(script)
+        if (token == null || !script.fileExists(marker) || script.readFile(marker).trim() != token) {
+            return false
+        }
+        String commit = previous.get("GIT_COMMIT")
+        if (commit != null && script.fileExists(".git/HEAD")) {
+            return script.readFile(".git/HEAD").trim() == commit
+        }
+        return true
+    }
+
+    private static String markerFile(CpsScript script) {
+        return "${script.pwd(tmp: true)}/${CheckoutReuseAction.MARKER_FILE}"
+    }
+
+    private static Map checkoutOrUnstash(CpsScript script, DeclarativeAgent agent) {
+        if (!agent.isCheckoutOnce()) {
+            return script.checkout(script.scm) ?: [:]
+        }
+
+        String subDir = agent.subdirectory
+        String role = CheckoutStashAction.claim(subDir)
+        if (role == CheckoutStashAction.WAIT) {
+            // Another agent is checking out right now - wait for its stash rather than hitting the SCM again.
+            role = script.awaitCheckoutStash(subdirectory: subDir)
+        }
+
+        if (role == CheckoutStashAction.READY) {
+            try {
+                if (agent.isCleanBeforeUnstash()) {
+                    // Unstashing only adds and overwrites files, so anything else here would survive otherwise.
+                    script.deleteDir()
+                }
+                script.unstash(CheckoutStashAction.stashName(subDir))
+                return CheckoutStashAction.checkoutVars(subDir)
+            } catch (Exception e) {
+                script.echo "Could not unstash the checkout, checking out instead: ${e.message}"
+            }
+        } else if (role == CheckoutStashAction.LEAD) {
+            def checkoutMap
+            try {
+                checkoutMap = script.checkout(script.scm) ?: [:]
+            } catch (Exception e) {
+                CheckoutStashAction.failed(subDir)
+                throw e
+            }
+            try {
+                script.stash(name: CheckoutStashAction.stashName(subDir), includes: "**", useDefaultExcludes: false)
+                CheckoutStashAction.ready(subDir, checkoutMap)
+            } catch (Exception e) {
+                CheckoutStashAction.failed(subDir)
+                script.echo "Could not stash the checkout for other agents: ${e.message}"
+            }
+            return checkoutMap
+        }
+
+        return script.checkout(script.scm) ?: [:]
+    }
 }